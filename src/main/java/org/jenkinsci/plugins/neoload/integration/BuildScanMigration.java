@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Run;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Adds the NeoLoad results to the builds of a job that were run before the plugin was installed ("scan all builds"
+ * option). The builds are scanned once per job in the background, one job at a time and slowly enough not to load the
+ * controller. A marker file in the job directory records that the scan is complete.
+ */
+public final class BuildScanMigration {
+
+	/**
+	 * The name of the marker file in the job directory.
+	 */
+	static final String MARKER_FILE_NAME = "neoload-builds-scanned";
+
+	/**
+	 * The pause after each scanned build.
+	 */
+	private static final long THROTTLE_MILLIS = 10;
+
+	private static final Logger LOGGER = Logger.getLogger(BuildScanMigration.class.getName());
+
+	private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+			new NamingThreadFactory(new DaemonThreadFactory(), "NeoLoad build scan"));
+
+	/**
+	 * The progress of the scheduled or running scans by job url.
+	 */
+	private static final ConcurrentMap<String, Progress> PROGRESSES = new ConcurrentHashMap<>();
+
+	/**
+	 * The jobs whose scan is complete, to not check the marker file on each page view.
+	 */
+	private static final ConcurrentMap<String, Boolean> COMPLETED = new ConcurrentHashMap<>();
+
+	private BuildScanMigration() {
+		throw new IllegalAccessError();
+	}
+
+	/**
+	 * Schedule the scan of the builds of a job, unless it is complete or already scheduled.
+	 *
+	 * @param project the project
+	 */
+	public static void schedule(final AbstractProject<?, ?> project) {
+		final String key = project.getUrl();
+		if (COMPLETED.containsKey(key) || PROGRESSES.containsKey(key)) {
+			return;
+		}
+		if (getMarkerFile(project).exists()) {
+			COMPLETED.put(key, Boolean.TRUE);
+			return;
+		}
+		final Progress progress = new Progress();
+		if (PROGRESSES.putIfAbsent(key, progress) == null) {
+			EXECUTOR.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						scan(project, progress);
+						COMPLETED.put(key, Boolean.TRUE);
+					} catch (IOException e) {
+						LOGGER.log(Level.WARNING, "Unable to scan the NeoLoad results of " + project.getFullName(), e);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						PROGRESSES.remove(key);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Scan the builds of a job and write the marker file. The running builds are skipped, their NeoLoad builder adds
+	 * the results once the test is run.
+	 *
+	 * @param project  the project
+	 * @param progress the progress of the scan
+	 * @throws IOException          the io exception
+	 * @throws InterruptedException the interrupted exception
+	 */
+	static void scan(final AbstractProject<?, ?> project, final Progress progress) throws IOException, InterruptedException {
+		progress.total = project.getBuilds().size();
+		for (Run run : project.getBuilds()) {
+			if (run instanceof AbstractBuild && !run.isBuilding() && run.getAction(NeoResultsAction.class) == null) {
+				final NeoResultsAction action = new NeoResultsAction((AbstractBuild<?, ?>) run, null, null);
+				action.resolveReport();
+				run.addAction(action);
+				// Saved with the build, the build won't be scanned again after a restart.
+				run.save();
+			}
+			progress.scanned++;
+			Thread.sleep(THROTTLE_MILLIS);
+		}
+		if (!getMarkerFile(project).createNewFile()) {
+			LOGGER.log(Level.FINE, "NeoLoad build scan marker already exists for " + project.getFullName());
+		}
+		LOGGER.log(Level.INFO, "NeoLoad results of the " + progress.scanned + " builds of " + project.getFullName() + " scanned");
+	}
+
+	private static File getMarkerFile(final AbstractProject<?, ?> project) {
+		return new File(project.getRootDir(), MARKER_FILE_NAME);
+	}
+
+	/**
+	 * Gets progress.
+	 *
+	 * @param project the project
+	 * @return the scanned and total number of builds, like "12/345", null if no scan is scheduled or running.
+	 */
+	public static String getProgress(final AbstractProject<?, ?> project) {
+		final Progress progress = PROGRESSES.get(project.getUrl());
+		return progress == null ? null : progress.toString();
+	}
+
+	/**
+	 * The number of scanned builds, only written by the scanning thread.
+	 */
+	static final class Progress {
+		private volatile int scanned = 0;
+		private volatile int total = 0;
+
+		@Override
+		public String toString() {
+			return scanned + "/" + total;
+		}
+	}
+}
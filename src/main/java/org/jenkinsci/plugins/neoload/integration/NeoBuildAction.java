@@ -45,9 +45,11 @@ import org.jenkinsci.plugins.neoload.integration.steps.NeoloadRunStep;
 import org.jenkinsci.plugins.neoload.integration.supporting.*;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.file.Files;
@@ -121,6 +123,34 @@ public class NeoBuildAction extends Builder implements SimpleBuildStep, NeoLoadP
      */
     private CommandInterpreter commandInterpreter = null;
     private boolean archiveAndBuildTrends;
+    /**
+     * The rules stopping the test early, evaluated on the live statistics.
+     */
+    private List<LiveAbortRule> liveAbortRules;
+    /**
+     * The index of this shard when the test is split across agents, from 0.
+     */
+    private int shardIndex;
+    /**
+     * The number of shards of the test, 0 or 1 when the test isn't split.
+     */
+    private int shardCount;
+    /**
+     * The trend series of this run when several scenarios are published side by side, null for the job trends.
+     */
+    private String trendSeries;
+    /**
+     * Store the assets of the html report once per job, by content, instead of archiving them with every build.
+     */
+    private boolean deduplicateReportAssets;
+    /**
+     * Compress the xml and html reports on the agent and archive the compressed reports.
+     */
+    private boolean compressReports;
+    /**
+     * Draw the trend charts as svg instead of png.
+     */
+    private boolean svgTrends;
 
 
     /**
@@ -246,6 +276,13 @@ public class NeoBuildAction extends Builder implements SimpleBuildStep, NeoLoadP
                 step.getMaxTrends()
         );
         this.setArchiveAndBuildTrends(step.isAutoArchive());
+        this.setLiveAbortRules(step.getLiveAbortRules());
+        this.setShardIndex(step.getShardIndex());
+        this.setShardCount(step.getShardCount());
+        this.setTrendSeries(step.getTrendSeries());
+        this.setDeduplicateReportAssets(step.isDeduplicateReportAssets());
+        this.setCompressReports(step.isCompressReports());
+        this.setSvgTrends(step.isSvgTrends());
     }
 
     /**
@@ -327,7 +364,12 @@ public class NeoBuildAction extends Builder implements SimpleBuildStep, NeoLoadP
     	  if (arePasswordsSafe()) {
         	final EnvVars env = build.getEnvironment(listener);
             build.addAction(new NeoResultsAction(build, getXMLReportArtifactPath(), getHTMLReportArtifactPath()));
-            return runTheCommand(env.expand(prepareCommandLine(launcher, null, false).toString()), build, launcher, listener);
+            final boolean result = runTheCommand(env.expand(prepareCommandLine(launcher, null, false).toString()), build, launcher, listener);
+            final FilePath workspace = build.getWorkspace();
+            if (workspace != null) {
+                collectReportMetrics(build, workspace, env, listener, ReportMetrics.FILE_NAME);
+            }
+            return result;
 
         } else {
             listener.getLogger().println("\nWARNING: a non-ciphered password has been detected. Please follow the procedure below:" );
@@ -477,9 +519,27 @@ public class NeoBuildAction extends Builder implements SimpleBuildStep, NeoLoadP
 
     private String computeVuCount() {
         if (PluginUtils.isSAP(licenseVUSAPCount)) {
-            return licenseVUCount + ";" + licenseVUSAPCount;
+            return getShareOfShard(licenseVUCount) + ";" + getShareOfShard(licenseVUSAPCount);
         } else {
-            return licenseVUCount;
+            return getShareOfShard(licenseVUCount);
+        }
+    }
+
+    /**
+     * Gets the part of a virtual user count leased by this shard, the remainder goes to the first shards.
+     *
+     * @param count the virtual user count of the whole test
+     * @return the count of this shard or the count itself if the test isn't split or the count isn't a number
+     */
+    String getShareOfShard(final String count) {
+        if (!isSharded()) {
+            return count;
+        }
+        try {
+            final int total = Integer.parseInt(StringUtils.trimToEmpty(count));
+            return Integer.toString(total / shardCount + (shardIndex < total % shardCount ? 1 : 0));
+        } catch (NumberFormatException e) {
+            return count;
         }
     }
 
@@ -515,7 +575,11 @@ public class NeoBuildAction extends Builder implements SimpleBuildStep, NeoLoadP
                     Matcher.quoteReplacement("\\$Date{") + "$1" + Matcher.quoteReplacement("}"));
         }
         if (StringUtils.trimToNull(escapedTestResultName) != null) {
-            commands.add("-testResultName \"" + escapedTestResultName + "\"");
+            commands.add("-testResultName \"" + escapedTestResultName + (isSharded() ? " - shard " + (shardIndex + 1) + "/" + shardCount : "") + "\"");
+        }
+        if (isSharded()) {
+            // Lets the scenario scale its population to the part of the load generated by this shard.
+            commands.add("-variables \"shardIndex=" + shardIndex + ",shardCount=" + shardCount + "\"");
         }
         if (StringUtils.trimToNull(testDescription) != null) {
             commands.add("-description \"" + testDescription + "\"");
@@ -590,6 +654,76 @@ public class NeoBuildAction extends Builder implements SimpleBuildStep, NeoLoadP
         return sb;
     }
 
+    /**
+     * Stores the assets of the html report in the store of the job, they are archived with the build if the store
+     * can't be updated.
+     */
+    private void storeReportAssets(final Run<?, ?> run, final FilePath ws, final EnvVars env, final Launcher launcher,
+                                   final TaskListener listener) throws InterruptedException, IOException {
+        if (StringUtils.trimToEmpty(htmlReport).length() == 0) {
+            return;
+        }
+        final String assetsPath = PluginUtils.getReportAssetsPath(htmlReport);
+        final FilePath assetsDir = resolveInWorkspace(ws, env, assetsPath);
+        try {
+            ReportAssetStore.archive(run, assetsDir, listener);
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to store the NeoLoad report assets of " + assetsDir.getRemote(), e);
+            listener.getLogger().println("Unable to store the report assets once per job, archiving them with the build.");
+            new ArtifactArchiver(assetsPath + "/**").perform(run, ws, launcher, listener);
+        }
+    }
+
+    /**
+     * Compresses a report next to it in the workspace, so the transfer to the master and the archive are smaller.
+     */
+    private static void compressReport(final FilePath ws, final EnvVars env, final TaskListener listener,
+                                       final String path) throws InterruptedException, IOException {
+        if (StringUtils.trimToEmpty(path).length() == 0) {
+            return;
+        }
+        final FilePath report = resolveInWorkspace(ws, env, path);
+        if (!report.act(new CompressReportCallable())) {
+            listener.getLogger().println("Unable to compress " + report.getRemote() + ", the report doesn't exist.");
+        }
+    }
+
+    /**
+     * Resolves a report path of the configuration in the workspace.
+     */
+    private static FilePath resolveInWorkspace(final FilePath ws, final EnvVars env, final String path) {
+        final EnvVars reportEnv = new EnvVars(env);
+        reportEnv.put("WORKSPACE", ws.getRemote());
+        return ws.child(reportEnv.expand(path.replace("%WORKSPACE%", "${WORKSPACE}")));
+    }
+
+    /**
+     * Reads the statistics of the xml report where NeoLoad wrote it and stores them in the build directory, so the
+     * trends never parse the archived report on the master.
+     */
+    private void collectReportMetrics(final Run<?, ?> run, final FilePath ws, final EnvVars env, final TaskListener listener,
+                                      final String fileName) throws InterruptedException {
+        final FilePath report;
+        if (isRepportCustomPath()) {
+            if (StringUtils.trimToEmpty(xmlReport).length() == 0) {
+                return;
+            }
+            report = resolveInWorkspace(ws, env, xmlReport);
+        } else {
+            report = ws.child("neoload-report/report.xml");
+        }
+        try {
+            final ReportMetrics metrics = report.act(new CollectMetricsCallable());
+            if (metrics != null) {
+                metrics.write(new File(run.getRootDir(), fileName));
+            }
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to collect the NeoLoad statistics of " + report.getRemote(), e);
+            listener.getLogger().println("Unable to read the NeoLoad statistics of " + report.getRemote()
+                    + ", they will be read from the archived report.");
+        }
+    }
+
     private boolean runTheCommand(final String command, final AbstractBuild<?, ?> build, final Launcher launcher, final BuildListener listener)
             throws InterruptedException {
 
@@ -936,6 +1070,148 @@ public class NeoBuildAction extends Builder implements SimpleBuildStep, NeoLoadP
         return maxTrends;
     }
 
+    /**
+     * Gets live abort rules.
+     *
+     * @return the live abort rules
+     */
+    public List<LiveAbortRule> getLiveAbortRules() {
+        return liveAbortRules;
+    }
+
+    /**
+     * Gets shard index.
+     *
+     * @return the index of this shard, from 0
+     */
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Sets shard index.
+     *
+     * @param shardIndex the index of this shard, from 0
+     */
+    @DataBoundSetter
+    public void setShardIndex(final int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    /**
+     * Gets shard count.
+     *
+     * @return the number of shards of the test
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Sets shard count.
+     *
+     * @param shardCount the number of shards of the test
+     */
+    @DataBoundSetter
+    public void setShardCount(final int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Gets trend series.
+     *
+     * @return the trend series of this run, null for the job trends
+     */
+    public String getTrendSeries() {
+        return trendSeries;
+    }
+
+    /**
+     * Sets trend series.
+     *
+     * @param trendSeries the trend series of this run
+     */
+    @DataBoundSetter
+    public void setTrendSeries(final String trendSeries) {
+        this.trendSeries = StringUtils.trimToNull(trendSeries);
+    }
+
+    /**
+     * Is deduplicate report assets boolean.
+     *
+     * @return true if the assets of the html report are stored once per job
+     */
+    public boolean isDeduplicateReportAssets() {
+        return deduplicateReportAssets;
+    }
+
+    /**
+     * Sets deduplicate report assets.
+     *
+     * @param deduplicateReportAssets true to store the assets of the html report once per job
+     */
+    @DataBoundSetter
+    public void setDeduplicateReportAssets(final boolean deduplicateReportAssets) {
+        this.deduplicateReportAssets = deduplicateReportAssets;
+    }
+
+    /**
+     * Is compress reports boolean.
+     *
+     * @return true if the xml and html reports are archived compressed
+     */
+    public boolean isCompressReports() {
+        return compressReports;
+    }
+
+    /**
+     * Sets compress reports.
+     *
+     * @param compressReports true to archive the xml and html reports compressed
+     */
+    @DataBoundSetter
+    public void setCompressReports(final boolean compressReports) {
+        this.compressReports = compressReports;
+    }
+
+    /**
+     * Is svg trends boolean.
+     *
+     * @return true if the trend charts are drawn as svg
+     */
+    public boolean isSvgTrends() {
+        return svgTrends;
+    }
+
+    /**
+     * Sets svg trends.
+     *
+     * @param svgTrends true to draw the trend charts as svg
+     */
+    @DataBoundSetter
+    public void setSvgTrends(final boolean svgTrends) {
+        this.svgTrends = svgTrends;
+    }
+
+    /**
+     * Is sharded boolean.
+     *
+     * @return true if this run is one shard of a test split across agents
+     */
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    /**
+     * Sets live abort rules.
+     *
+     * @param liveAbortRules the live abort rules
+     */
+    @DataBoundSetter
+    public void setLiveAbortRules(final List<LiveAbortRule> liveAbortRules) {
+        this.liveAbortRules = liveAbortRules;
+    }
+
 
     /**
      * Perform boolean.
@@ -950,32 +1226,88 @@ public class NeoBuildAction extends Builder implements SimpleBuildStep, NeoLoadP
     public void perform(Run<?, ?> run, FilePath ws, Launcher launcher, TaskListener listener) throws InterruptedException, IOException {
 
         if (arePasswordsSafe()) {
+            LiveAbortRule.checkRules(liveAbortRules);
 
             final StringBuilder sb = prepareCommandLine(launcher, ws, true);
             final SimpleBuildOption jobProp = SimpleBuildOption.fromNPO(this);
             final EnvVars env = run.getEnvironment(listener);
 
-            run.getParent().removeProperty(SimpleBuildOption.class);
-            run.getParent().addProperty(jobProp);
-            run.addAction(new NeoResultsAction(run, xmlReport, htmlReport));
+            if (trendSeries == null || run.getParent().getProperty(SimpleBuildOption.class) == null) {
+                // The scenarios published side by side share the graphs definition of the job.
+                run.getParent().removeProperty(SimpleBuildOption.class);
+                run.getParent().addProperty(jobProp);
+            }
+            if (isSharded()) {
+                if (shardIndex < 0 || shardIndex >= shardCount) {
+                    throw new NeoloadException("The shard index must be between 0 and " + (shardCount - 1) + ".");
+                }
+                if (trendSeries != null) {
+                    throw new NeoloadException("A shard can't be published as a trend series, merge the shards first.");
+                }
+                listener.getLogger().println("Running shard " + (shardIndex + 1) + "/" + shardCount);
+            } else if (trendSeries != null) {
+                listener.getLogger().println("Running trend series " + trendSeries);
+            } else {
+                run.addAction(new NeoResultsAction(run, xmlReport, htmlReport));
+            }
+
+            // The shards and the scenarios running in parallel in the build each show their own statistics.
+            final String liveLabel = isSharded() ? "shard " + (shardIndex + 1) + "/" + shardCount : trendSeries;
+            final NeoLiveAction liveAction = new NeoLiveAction(run, liveLabel);
+            run.addAction(liveAction);
+            final LiveAbortMonitor abortMonitor = new LiveAbortMonitor(liveAbortRules, liveAction);
+            final LiveOutputStream liveOutput = new LiveOutputStream(listener.getLogger(), run.getCharset(), abortMonitor);
 
             Launcher.ProcStarter procStarter = launcher.launch();
             procStarter.cmdAsSingleString(env.expand(sb.toString()));
-            procStarter.stdout(listener);
+            procStarter.stdout(liveOutput);
             Proc proc = launcher.launch(procStarter);
-            int returnValue = proc.join();
-
-            run.addAction(new ProjectSpecificAction(run));
+            abortMonitor.attach(proc);
+            int returnValue;
+            try {
+                returnValue = proc.join();
+            } finally {
+                liveOutput.close();
+                liveAction.setAbortReason(abortMonitor.getBreach());
+                liveAction.stop();
+            }
+            final String breach = abortMonitor.getBreach();
+            if (breach != null) {
+                listener.getLogger().println("NeoLoad test stopped early, live abort rule breached: " + breach);
+            }
+            if (isSharded()) {
+                // The shards of a test run in the same build, their statistics are merged by neoloadMergeShards.
+                collectReportMetrics(run, ws, env, listener, ReportMetrics.getShardFileName(shardIndex));
+            } else if (trendSeries != null) {
+                // The scenarios of a build run in parallel, their trends are published once by neoloadPublishScenarios.
+                collectReportMetrics(run, ws, env, listener, ReportMetrics.getSeriesFileName(trendSeries));
+            } else {
+                collectReportMetrics(run, ws, env, listener, ReportMetrics.FILE_NAME);
+                run.addAction(new ProjectSpecificAction(run));
+            }
 
-            if (this.isArchiveAndBuildTrends()) {
+            if (this.isArchiveAndBuildTrends() && trendSeries != null) {
+                // The scenarios running in parallel would archive their reports to the same paths of the build.
+                listener.getLogger().println("The reports of the trend series " + trendSeries + " aren't archived, only its statistics are kept.");
+            } else if (this.isArchiveAndBuildTrends() && !isSharded()) {
+                if (compressReports) {
+                    compressReport(ws, env, listener, xmlReport);
+                    compressReport(ws, env, listener, htmlReport);
+                }
                 final String artifact = PluginUtils.forgeArtifactoryPath(this);
                 listener.getLogger().println("Archiving " + artifact);
                 ArtifactArchiver archiver = new ArtifactArchiver(artifact);
 
                 archiver.perform(run, ws, launcher, listener);
+                if (deduplicateReportAssets) {
+                    storeReportAssets(run, ws, env, launcher, listener);
+                }
 
                 listener.getLogger().println("Building trends...");
-                PluginUtils.buildGraph(run.getParent());
+                PluginUtils.updateGraph(run);
+            }
+            if (breach != null) {
+                throw new NeoloadException("Test stopped early, live abort rule breached: " + breach);
             }
             if (returnValue != 0) {
                 throw new NeoloadException("Error occurred during the test.");
@@ -74,6 +74,11 @@ public class NeoGlobalConfig extends GlobalConfiguration implements Serializable
 
 		private String defaultExecutable = "";
 
+		/**
+		 * The number of threads reading the reports while the trends are built, 0 to use one thread per processor.
+		 */
+		private int reportReaderThreads = 0;
+
 		/**
 		 * Instantiates a new Descriptor.
 		 */
@@ -112,6 +117,8 @@ public class NeoGlobalConfig extends GlobalConfiguration implements Serializable
 			final Object defaultExecutableObject = json.get("defaultExecutable");
 			this.defaultExecutable = defaultExecutableObject==null ? "" : defaultExecutableObject.toString();
 
+			this.reportReaderThreads = Math.max(0, json.optInt("reportReaderThreads", 0));
+
 			// known issue: action: create a new server, click "Apply" to save the settings multiple times.
 			// result: the uniqueID changes every time the apply button is clicked. this is because the hidden
 			// uniqueID field is always sent as blank. once the user reloads the page the issue is fixed.
@@ -207,5 +214,33 @@ public class NeoGlobalConfig extends GlobalConfiguration implements Serializable
 		public void setDefaultExecutable(final String defaultExecutable) {
 			this.defaultExecutable = defaultExecutable;
 		}
+
+		/**
+		 * Gets report reader threads.
+		 *
+		 * @return the number of threads reading the reports, 0 to use one thread per processor
+		 */
+		public int getReportReaderThreads() {
+			return reportReaderThreads;
+		}
+
+		/**
+		 * Sets report reader threads.
+		 *
+		 * @param reportReaderThreads the number of threads reading the reports, 0 to use one thread per processor
+		 */
+		public void setReportReaderThreads(final int reportReaderThreads) {
+			this.reportReaderThreads = reportReaderThreads;
+		}
+
+		/**
+		 * Do check report reader threads form validation.
+		 *
+		 * @param reportReaderThreads the report reader threads
+		 * @return the form validation
+		 */
+		public FormValidation doCheckReportReaderThreads(@QueryParameter final String reportReaderThreads) {
+			return FormValidation.validateNonNegativeInteger(reportReaderThreads);
+		}
 	}
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration;
+
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.neoload.integration.supporting.LiveOutputStream;
+import org.jenkinsci.plugins.neoload.integration.supporting.LiveStatistics;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows the running statistics of a NeoLoad test while it runs.
+ * <p>
+ * Only the last statistics are kept, in a ring buffer, so that a long test doesn't grow the build. The shards and the
+ * trend series of a build run in parallel, each has its own action, named after it.
+ */
+public class NeoLiveAction implements RunAction2, LiveOutputStream.Receiver {
+
+	/**
+	 * The number of statistics kept.
+	 */
+	static final int CAPACITY = 120;
+
+	private static final String URL_NAME = "neoload-live";
+
+	private transient Run<?, ?> run;
+	/**
+	 * The shard or the trend series of the test, null for a single test.
+	 */
+	private final String label;
+	private final LiveStatistics[] samples = new LiveStatistics[CAPACITY];
+	/**
+	 * The index of the next sample in the ring buffer.
+	 */
+	private int next = 0;
+	private int count = 0;
+	private boolean running = true;
+	/**
+	 * The live abort rule that stopped the test, null if the test wasn't stopped.
+	 */
+	private String abortReason = null;
+
+	/**
+	 * Instantiates a new Neo live action.
+	 *
+	 * @param run the run
+	 */
+	public NeoLiveAction(final Run<?, ?> run) {
+		this(run, null);
+	}
+
+	/**
+	 * Instantiates a new Neo live action for one of the tests running in parallel in a build.
+	 *
+	 * @param run   the run
+	 * @param label the shard or the trend series of the test, null for a single test
+	 */
+	public NeoLiveAction(final Run<?, ?> run, final String label) {
+		this.run = run;
+		this.label = label;
+	}
+
+	@Override
+	public void onAttached(final Run<?, ?> r) {
+		this.run = r;
+	}
+
+	@Override
+	public void onLoad(final Run<?, ?> r) {
+		this.run = r;
+	}
+
+	/**
+	 * Gets build.
+	 *
+	 * @return the build
+	 */
+	public Run<?, ?> getBuild() {
+		return run;
+	}
+
+	@Override
+	public synchronized void receive(final LiveStatistics statistics) {
+		samples[next] = statistics;
+		next = (next + 1) % CAPACITY;
+		count = Math.min(count + 1, CAPACITY);
+	}
+
+	/**
+	 * Gets the kept statistics, the oldest first.
+	 *
+	 * @return the statistics
+	 */
+	public synchronized List<LiveStatistics> getSamples() {
+		final List<LiveStatistics> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(samples[(next - count + i + CAPACITY) % CAPACITY]);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the last statistics.
+	 *
+	 * @return the last statistics or null if none were received
+	 */
+	public synchronized LiveStatistics getLast() {
+		if (count == 0) {
+			return null;
+		}
+		return samples[(next - 1 + CAPACITY) % CAPACITY];
+	}
+
+	/**
+	 * Is running boolean.
+	 *
+	 * @return true while NeoLoad runs
+	 */
+	public synchronized boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Called when the NeoLoad process ends.
+	 */
+	public synchronized void stop() {
+		running = false;
+	}
+
+	/**
+	 * Gets abort reason.
+	 *
+	 * @return the breached live abort rule or null if the test wasn't stopped early
+	 */
+	public synchronized String getAbortReason() {
+		return abortReason;
+	}
+
+	/**
+	 * Sets abort reason.
+	 *
+	 * @param abortReason the breached live abort rule
+	 */
+	public synchronized void setAbortReason(final String abortReason) {
+		this.abortReason = abortReason;
+	}
+
+	/**
+	 * Gets label.
+	 *
+	 * @return the shard or the trend series of the test, null for a single test
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Gets display name.
+	 *
+	 * @return the display name
+	 */
+	public String getDisplayName() {
+		return label == null ? "NeoLoad Live Statistics" : "NeoLoad Live Statistics (" + label + ")";
+	}
+
+	/**
+	 * Gets icon file name.
+	 *
+	 * @return the icon file name, null once the test is finished without statistics
+	 */
+	public String getIconFileName() {
+		if (!isRunning() && getLast() == null) {
+			return null;
+		}
+		return "/plugin/neoload-jenkins-plugin/images/logo48.png";
+	}
+
+	/**
+	 * Gets url name.
+	 *
+	 * @return the url name
+	 */
+	public String getUrlName() {
+		return label == null ? URL_NAME : URL_NAME + "-" + label.replaceAll("[^A-Za-z0-9_.-]", "_");
+	}
+
+	/**
+	 * Sends the kept statistics as json, polled by the live page.
+	 *
+	 * @param request  the request
+	 * @param response the response
+	 * @throws IOException the io exception
+	 */
+	public void doLatest(final StaplerRequest request, final StaplerResponse response) throws IOException {
+		final JSONArray array = new JSONArray();
+		for (LiveStatistics statistics : getSamples()) {
+			final JSONObject sample = new JSONObject();
+			sample.put("timestamp", statistics.getTimestamp());
+			sample.put("elapsed", statistics.getElapsedTime());
+			sample.put("hitsPerSecond", Float.isNaN(statistics.getHitsPerSecond()) ? null : statistics.getHitsPerSecond());
+			sample.put("errors", statistics.getErrors());
+			sample.put("virtualUsers", statistics.getVirtualUsers());
+			array.add(sample);
+		}
+		final JSONObject json = new JSONObject();
+		json.put("running", isRunning());
+		json.put("abortReason", getAbortReason());
+		json.put("samples", array);
+		response.setContentType("application/json;charset=UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		response.getWriter().write(json.toString());
+	}
+}
@@ -90,7 +90,7 @@ public class NeoPostBuildTask extends Recorder {
 	 */
 	@Override
 	public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener) {
-		PluginUtils.buildGraph(build.getProject());
+		PluginUtils.updateGraph(build);
 		return true;
 	}
 
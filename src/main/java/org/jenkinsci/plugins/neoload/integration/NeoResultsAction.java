@@ -30,9 +30,21 @@ import hudson.model.AbstractBuild;
 import hudson.model.Action;
 import hudson.model.Run;
 import hudson.model.Run.Artifact;
+import hudson.util.IOUtils;
 import org.jenkinsci.plugins.neoload.integration.supporting.NeoLoadPluginOptions;
+import org.jenkinsci.plugins.neoload.integration.supporting.NeoloadGraphsStatistics;
 import org.jenkinsci.plugins.neoload.integration.supporting.PluginUtils;
+import org.jenkinsci.plugins.neoload.integration.supporting.ReportAssetStore;
+import org.jenkinsci.plugins.neoload.integration.supporting.ReportCompression;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -66,6 +78,14 @@ public class NeoResultsAction implements Action {
 	 * This is added to a file to mark whether the styles have been applied or not.
 	 */
 	private static final String COMMENT_CSS_APPLIED_STYLE = "/* NeoLoad Jenkins plugin applied style */";
+	/**
+	 * The system property of the content security policy of the artifacts, read by DirectoryBrowserSupport.
+	 */
+	private static final String CSP_PROPERTY = "hudson.model.DirectoryBrowserSupport.CSP";
+	/**
+	 * The content security policy of the artifacts when the system property isn't set.
+	 */
+	private static final String DEFAULT_CSP = "sandbox; default-src 'none'; img-src 'self'; style-src 'self';";
 	/**
 	 * Log various messages.
 	 */
@@ -83,7 +103,36 @@ public class NeoResultsAction implements Action {
 	/**
 	 * True if the report file is found without any issues. This allows us to only show the link when the report file is found.
 	 */
-	private Artifact reportHTMLArtifactCache = null;
+	private transient Artifact reportHTMLArtifactCache = null;
+	/**
+	 * True once the locations of the archived reports are stored in this action, the artifacts of the build are not
+	 * scanned anymore to display the build.
+	 */
+	private boolean reportResolved = false;
+	/**
+	 * The relative path of the archived html report, null if there is no html report.
+	 */
+	private String htmlReportRelativePath = null;
+	/**
+	 * The href of the archived html report.
+	 */
+	private String htmlReportHref = null;
+	/**
+	 * The relative path of the archived xml report, null if there is no xml report.
+	 */
+	private String xmlReportRelativePath = null;
+	/**
+	 * The average response time of the pages found in the xml report.
+	 */
+	private Float averageResponseTime = null;
+	/**
+	 * The error rate found in the xml report.
+	 */
+	private Float errorRate = null;
+	/**
+	 * The manifest of the report assets stored once per job, empty if the assets are archived with the build.
+	 */
+	private transient Map<String, String> assetManifest = null;
 
 	/**
 	 * Instantiates a new Neo results action.
@@ -135,6 +184,16 @@ public class NeoResultsAction implements Action {
 		return run;
 	}
 
+	private Artifact findXmlReportArtifact() {
+		if (build != null) {
+			return PluginUtils.findArtifact(PluginUtils.getXMLReportPaths(build), build);
+		}
+		if (run != null) {
+			return PluginUtils.findArtifact(PluginUtils.getXMLReportPaths(run), run);
+		}
+		return null;
+	}
+
 	private Artifact getReportArtifact() {
 		if (reportHTMLArtifactCache == null) {
 			reportHTMLArtifactCache = findHtmlReportArtifact();
@@ -142,6 +201,43 @@ public class NeoResultsAction implements Action {
 		return reportHTMLArtifactCache;
 	}
 
+	/**
+	 * Looks for the archived reports of the build and stores their locations and the summary of the xml report in
+	 * this action. Must be called once the artifacts are archived, the build has to be saved afterwards.
+	 */
+	public void resolveReport() {
+		final Artifact htmlArtifact = findHtmlReportArtifact();
+		final Artifact xmlArtifact = findXmlReportArtifact();
+		reportHTMLArtifactCache = htmlArtifact;
+		htmlReportRelativePath = htmlArtifact == null ? null : htmlArtifact.relativePath;
+		htmlReportHref = htmlArtifact == null ? null : htmlArtifact.getHref();
+		xmlReportRelativePath = xmlArtifact == null ? null : xmlArtifact.relativePath;
+		if (xmlArtifact != null) {
+			final Map<String, Float> summary = NeoloadGraphsStatistics.getSummaryValues(getBuild(), xmlArtifact.getFile());
+			if (summary != null) {
+				averageResponseTime = summary.get(NeoloadGraphsStatistics.AVG_RESPONSE_TIME_XPATH);
+				errorRate = summary.get(NeoloadGraphsStatistics.ERROR_RATE_XPATH);
+			}
+		}
+		reportResolved = true;
+	}
+
+	/**
+	 * Is report resolved boolean.
+	 *
+	 * @return true if the locations of the reports are stored in this action
+	 */
+	public boolean isReportResolved() {
+		return reportResolved;
+	}
+
+	private boolean hasHtmlReport() {
+		if (reportResolved) {
+			return htmlReportHref != null;
+		}
+		return getReportArtifact() != null;
+	}
+
 
 	/**
 	 * Gets display name.
@@ -150,7 +246,7 @@ public class NeoResultsAction implements Action {
 	 */
 	public String getDisplayName() {
 
-		if (getReportArtifact() == null) {
+		if (!hasHtmlReport()) {
 			return null;
 		} else {
 			return "Performance Result";
@@ -164,7 +260,7 @@ public class NeoResultsAction implements Action {
 	 */
 	public String getIconFileName() {
 
-		if (getReportArtifact() == null) {
+		if (!hasHtmlReport()) {
 			return null;
 		} else {
 			return "/plugin/neoload-jenkins-plugin/images/logo48.png";
@@ -177,7 +273,7 @@ public class NeoResultsAction implements Action {
 	 * @return the url name
 	 */
 	public String getUrlName() {
-		if (getReportArtifact() == null) {
+		if (!hasHtmlReport()) {
 			return null;
 		} else {
 			return "neoload-report";
@@ -190,12 +286,151 @@ public class NeoResultsAction implements Action {
 	 * @return the html report file path
 	 */
 	public String getHtmlReportFilePath() {
+		if (reportResolved) {
+			return htmlReportHref;
+		}
 		if (getReportArtifact() == null) {
 			return null;
 		}
 		return getReportArtifact().getHref();
 	}
 
+	/**
+	 * Gets the url of the html report displayed in the frame, relative to the page of this action.
+	 *
+	 * @return the html report url
+	 */
+	public String getHtmlReportUrl() {
+		final String relativePath = getHtmlReportArtifactRelativePath();
+		if (relativePath != null && (ReportCompression.isCompressed(relativePath) || !getAssetManifest().isEmpty())) {
+			// The report is compressed or its assets aren't in the artifacts of the build, they are served by doReport.
+			return "report/" + ReportCompression.getUncompressedName(new File(relativePath).getName());
+		}
+		return "../artifact/" + getHtmlReportFilePath();
+	}
+
+	private String getHtmlReportArtifactRelativePath() {
+		if (reportResolved) {
+			return htmlReportRelativePath;
+		}
+		return getReportArtifact() == null ? null : getReportArtifact().relativePath;
+	}
+
+	private Map<String, String> getAssetManifest() {
+		if (assetManifest == null) {
+			assetManifest = ReportAssetStore.readManifest(getBuild().getRootDir());
+		}
+		return assetManifest;
+	}
+
+	/**
+	 * Serves the html report of a build whose assets are stored once per job or whose reports are compressed: the
+	 * assets come from the store of the job, the other files from the directory of the html report in the artifacts of
+	 * the build. A compressed file is sent as is to the browsers accepting gzip, decompressed while sent otherwise. Like
+	 * the artifacts of the build, the report requires the permission to see the artifacts and is sent with the content
+	 * security policy of the artifacts.
+	 *
+	 * @param req the req
+	 * @param rsp the rsp
+	 * @throws IOException the io exception
+	 */
+	public void doReport(final StaplerRequest req, final StaplerResponse rsp) throws IOException {
+		getBuild().checkPermission(Run.ARTIFACTS);
+		final String relativePath = getHtmlReportArtifactRelativePath();
+		final String path = req.getRestOfPath().replaceFirst("^/+", "");
+		if (relativePath == null || path.isEmpty()) {
+			rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		File file = ReportAssetStore.findAsset(getBuild().getParent(), getAssetManifest(), path);
+		if (file == null) {
+			final File reportDir = new File(getBuild().getArtifactsDir(), relativePath).getParentFile();
+			file = new File(reportDir, path);
+			if (!file.isFile()) {
+				file = new File(reportDir, path + ReportCompression.GZIP_EXTENSION);
+			}
+			if (!file.getCanonicalPath().startsWith(reportDir.getCanonicalPath() + File.separator) || !file.isFile()) {
+				rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+		}
+		final String contentType = req.getStapler().getContext().getMimeType(path);
+		rsp.setContentType(contentType == null ? "application/octet-stream" : contentType);
+		final String csp = System.getProperty(CSP_PROPERTY, DEFAULT_CSP);
+		if (!csp.trim().isEmpty()) {
+			// The headers set by DirectoryBrowserSupport for the artifacts.
+			for (String header : new String[]{"Content-Security-Policy", "X-WebKit-CSP", "X-Content-Security-Policy"}) {
+				rsp.setHeader(header, csp);
+			}
+		}
+		final boolean compressed = ReportCompression.isCompressed(file.getName()) && !ReportCompression.isCompressed(path);
+		final String acceptEncoding = req.getHeader("Accept-Encoding");
+		if (compressed) {
+			rsp.setHeader("Vary", "Accept-Encoding");
+		}
+		final ServletOutputStream os = rsp.getOutputStream();
+		if (compressed && (acceptEncoding == null || !acceptEncoding.contains("gzip"))) {
+			try (InputStream inputStream = ReportCompression.openReport(file)) {
+				IOUtils.copy(inputStream, os);
+			}
+		} else {
+			if (compressed) {
+				rsp.setHeader("Content-Encoding", "gzip");
+			}
+			rsp.setHeader("Content-Length", Long.toString(file.length()));
+			IOUtils.copy(file, os);
+		}
+		os.close();
+	}
+
+	/**
+	 * Gets html report relative path.
+	 *
+	 * @return the relative path of the archived html report, null if unknown
+	 */
+	public String getHtmlReportRelativePath() {
+		return htmlReportRelativePath;
+	}
+
+	/**
+	 * Gets xml report relative path.
+	 *
+	 * @return the relative path of the archived xml report, null if unknown
+	 */
+	public String getXmlReportRelativePath() {
+		return xmlReportRelativePath;
+	}
+
+	/**
+	 * Gets the archived xml report file from the stored location.
+	 *
+	 * @return the xml report file, null if the build has no xml report
+	 */
+	public File getXmlReportFile() {
+		if (xmlReportRelativePath == null) {
+			return null;
+		}
+		return new File(getBuild().getArtifactsDir(), xmlReportRelativePath);
+	}
+
+	/**
+	 * Gets average response time.
+	 *
+	 * @return the average response time of the pages, null if unknown
+	 */
+	public Float getAverageResponseTime() {
+		return averageResponseTime;
+	}
+
+	/**
+	 * Gets error rate.
+	 *
+	 * @return the error rate, null if unknown
+	 */
+	public Float getErrorRate() {
+		return errorRate;
+	}
+
 	/**
 	 * Gets stored xml report path.
 	 *
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import org.jenkinsci.plugins.neoload.integration.supporting.ReportAssetStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores the locations of the archived NeoLoad reports in the {@link NeoResultsAction} once the build is completed,
+ * so displaying the build or the trends doesn't scan the artifacts of the build again. Removes the report assets no
+ * build references anymore when a build is deleted.
+ */
+@Extension(optional = true)
+public class NeoResultsRunListener extends RunListener<Run<?, ?>> {
+
+	/**
+	 * Log various messages.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(NeoResultsRunListener.class.getName());
+
+	@Override
+	public void onCompleted(final Run<?, ?> run, final TaskListener listener) {
+		final NeoResultsAction action = run.getAction(NeoResultsAction.class);
+		if (action == null || action.isReportResolved()) {
+			return;
+		}
+		action.resolveReport();
+		try {
+			run.save();
+		} catch (final IOException e) {
+			LOGGER.log(Level.WARNING, "Unable to save the NeoLoad report locations of " + run.getFullDisplayName(), e);
+		}
+	}
+
+	@Override
+	public void onDeleted(final Run<?, ?> run) {
+		if (new File(run.getRootDir(), ReportAssetStore.MANIFEST_FILE_NAME).isFile()) {
+			ReportAssetStore.collectGarbage(run.getParent(), run.getRootDir());
+		}
+	}
+}
@@ -26,25 +26,38 @@
  */
 package org.jenkinsci.plugins.neoload.integration;
 
-import com.google.common.collect.Lists;
+import com.google.gson.stream.JsonWriter;
 import hudson.model.*;
-import hudson.util.IOUtils;
-import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
+import net.sf.json.JSONObject;
 import org.jenkinsci.plugins.neoload.integration.supporting.GraphOptionsInfo;
 import org.jenkinsci.plugins.neoload.integration.supporting.NeoLoadPluginOptions;
+import org.jenkinsci.plugins.neoload.integration.supporting.NeoloadGraphsStatistics;
 import org.jenkinsci.plugins.neoload.integration.supporting.PluginUtils;
+import org.jenkinsci.plugins.neoload.integration.supporting.TrendPictures;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
 import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Along with the jelly file and the Factory class, this class adds the two trend graphs to a job page.
@@ -62,6 +75,15 @@ public class ProjectSpecificAction implements ProminentProjectAction, SimpleBuil
 
 	private final File picturesFolder;
 
+	/**
+	 * The longest time a request waits for the end of a trend rebuild.
+	 */
+	private static final long AWAIT_TIMEOUT_MILLIS = 30000;
+
+	/**
+	 * The browsers keep the charts but check with the server that they didn't change before showing them.
+	 */
+	private static final String CACHE_CONTROL = "private, no-cache";
 
 	/**
 	 * Instantiates a new Project specific action.
@@ -142,71 +164,108 @@ public class ProjectSpecificAction implements ProminentProjectAction, SimpleBuil
 	}
 
 	/**
-	 * Scan build report.
+	 * Scan build report. The builds are scanned once in the background, see {@link BuildScanMigration}.
 	 */
 	public void scanBuildReport() {
-		if (npo == null || !npo.isScanAllBuilds()) {
+		if (npo == null || !npo.isScanAllBuilds() || project == null) {
 			return;
 		}
-		for (Run run : project.getBuilds()) {
-			if (run.getAction(NeoResultsAction.class) == null) {
-				if (run instanceof AbstractBuild) {
-					run.addAction(new NeoResultsAction((AbstractBuild<?, ?>) run, null, null));
-				}
-			}
-		}
+		BuildScanMigration.schedule(project);
+	}
+
+	/**
+	 * Gets scan progress.
+	 *
+	 * @return the progress of the scan of the builds, null if the builds aren't being scanned
+	 */
+	public String getScanProgress() {
+		return project == null ? null : BuildScanMigration.getProgress(project);
+	}
+
+	private Job<?, ?> getJob() {
+		return project != null ? project : run.getParent();
 	}
 
 	/**
-	 * Gets charts name.
+	 * Gets charts name. The charts of the stored trends are listed in the format configured for the job, they are
+	 * rendered when the browser requests them.
+	 * The pictures written by the previous versions are listed until the trends are built again.
 	 *
 	 * @return list of trends inside neoload-trend directory
 	 */
 	public List<String> getChartsName() {
 		scanBuildReport();
-		//Be careful this is an optimised test
-		if ((project != null && PluginUtils.GRAPH_LOCK.tryLock(project)) || (run != null && PluginUtils.GRAPH_LOCK.tryLock(run.getParent()))) {
-			try {
-				List<String> chartName = new ArrayList<>();
-
-				if (picturesFolder.isDirectory()) {
-					final File[] files = picturesFolder.listFiles(new FileFilter() {
-						@Override
-						public boolean accept(final File pathname) {
-							return pathname.toString().toLowerCase().endsWith(".png");
-						}
-					});
-					if (files != null) {
-						Arrays.sort(files);
-						for (File pictureFile : files) {
-							chartName.add("neoload/img/" + pictureFile.getName());
-						}
-					}
-				}
-				return chartName;
-			} finally {
-				if (project != null) {
-					PluginUtils.GRAPH_LOCK.unlock(project);
-				} else {
-					PluginUtils.GRAPH_LOCK.unlock(run.getParent());
-				}
+		final List<String> chartName = new ArrayList<>();
+		final NeoloadGraphsStatistics trends = PluginUtils.loadTrends(getJob());
+		if (trends != null) {
+			for (int i = 0; i < trends.getChartCount(); i++) {
+				chartName.add("neoload/img/" + trends.getChartName(i));
+			}
+		} else if (picturesFolder.isDirectory()) {
+			final String generation = TrendPictures.getCurrentGeneration(picturesFolder);
+			for (File pictureFile : TrendPictures.listPictures(TrendPictures.getFolder(picturesFolder, generation))) {
+				chartName.add("neoload/img/" + pictureFile.getName() + (generation == null ? "" : "?generation=" + generation));
 			}
-		} else {
-			return Lists.newArrayList(Jenkins.getInstance().getRootUrl() + Jenkins.RESOURCE_PATH + "/images/spinner.gif");
 		}
+		return chartName;
 	}
 
 	/**
-	 * Build graphs.
+	 * Build graphs. The rebuild is queued, it is coalesced with the rebuild already requested for the job.
 	 */
 	public void buildGraphs() {
-		new Thread(new Runnable() {
-			@Override
-			public void run() {
-				PluginUtils.buildGraph(picturesFolder, npo, project);
-			}
-		}).start();
+		if (project != null) {
+			PluginUtils.GRAPH_QUEUE.schedule(project, new Runnable() {
+				@Override
+				public void run() {
+					PluginUtils.buildGraph(picturesFolder, npo, project);
+				}
+			});
+		} else {
+			final Job<?, ?> job = run.getParent();
+			PluginUtils.GRAPH_QUEUE.schedule(job, new Runnable() {
+				@Override
+				public void run() {
+					PluginUtils.buildGraph(picturesFolder, npo, job);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Gets rebuild queue depth.
+	 *
+	 * @return the number of trend rebuilds waiting in the instance
+	 */
+	public int getRebuildQueueDepth() {
+		return PluginUtils.GRAPH_QUEUE.getQueueDepth();
+	}
+
+	/**
+	 * Gets rebuild latency.
+	 *
+	 * @return the average time in milliseconds between a trend rebuild request and its end
+	 */
+	public long getRebuildLatency() {
+		return PluginUtils.GRAPH_QUEUE.getAverageLatency();
+	}
 
+	/**
+	 * Gets lock contentions.
+	 *
+	 * @return the number of times a trend building found the trends of its job locked
+	 */
+	public long getLockContentions() {
+		return PluginUtils.GRAPH_LOCK.getContentions();
+	}
+
+	/**
+	 * Gets lock hold time.
+	 *
+	 * @return the average time in milliseconds the trends of a job are locked
+	 */
+	public long getLockHoldTime() {
+		return PluginUtils.GRAPH_LOCK.getAverageHoldTime();
 	}
 
 	/**
@@ -239,17 +298,75 @@ public class ProjectSpecificAction implements ProminentProjectAction, SimpleBuil
 	}
 
 	/**
-	 * Used from javascript to check lock state.
+	 * Used from javascript to wait for the end of the trend rebuild of the job. The request is held until the rebuild
+	 * ends or the timeout expires, the response tells if the rebuild ended and lists the charts.
+	 *
+	 * @param req the req
+	 * @param rsp the rsp
+	 * @throws IOException the io exception
+	 */
+	public void doAwait(final StaplerRequest req, final StaplerResponse rsp) throws IOException {
+		final Job<?, ?> job = getJob();
+		boolean done;
+		try {
+			final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+			// The queued rebuild first, then a trend building of a finished build holding the lock.
+			PluginUtils.GRAPH_QUEUE.getCompletion(job).get(AWAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			PluginUtils.GRAPH_LOCK.getCompletion(job).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			done = true;
+		} catch (TimeoutException e) {
+			done = false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			done = false;
+		} catch (ExecutionException e) {
+			done = true;
+		}
+		final JSONObject json = new JSONObject();
+		json.put("done", done);
+		json.put("charts", done ? getChartsName() : new ArrayList<String>());
+		rsp.setContentType("application/json;charset=UTF-8");
+		rsp.setHeader("Cache-Control", "no-cache");
+		final PrintWriter writer = rsp.getWriter();
+		writer.print(json.toString());
+		writer.close();
+	}
+
+	/**
+	 * Serves the values of the trends as json for the charts drawn by the browser. The optional parameters
+	 * <code>from</code> and <code>to</code> bound the build numbers, the repeatable parameter <code>metric</code>
+	 * selects graphs by title or index.
 	 *
 	 * @param req the req
 	 * @param rsp the rsp
 	 * @throws IOException the io exception
 	 */
-	public void doChecklock(final StaplerRequest req, final StaplerResponse rsp) throws IOException {
-		final ServletOutputStream outputStream = rsp.getOutputStream();
-		final String resp = PluginUtils.GRAPH_LOCK.isLocked(project) ? "locked" : "free";
-		outputStream.println(resp);
-		outputStream.close();
+	public void doData(final StaplerRequest req, final StaplerResponse rsp) throws IOException {
+		final Integer from;
+		final Integer to;
+		try {
+			from = parseBuildNumber(req.getParameter("from"));
+			to = parseBuildNumber(req.getParameter("to"));
+		} catch (NumberFormatException e) {
+			rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "from and to must be build numbers");
+			return;
+		}
+		final String[] metrics = req.getParameterValues("metric");
+		final NeoloadGraphsStatistics trends = PluginUtils.loadTrends(getJob());
+		rsp.setContentType("application/json;charset=UTF-8");
+		rsp.setHeader("Cache-Control", "no-cache");
+		final JsonWriter writer = new JsonWriter(rsp.getWriter());
+		if (trends == null) {
+			// The trends aren't built yet.
+			writer.beginObject().name("builds").beginArray().endArray().name("graphs").beginArray().endArray().endObject();
+		} else {
+			trends.writeJson(writer, from, to, metrics == null ? Collections.<String>emptyList() : Arrays.asList(metrics));
+		}
+		writer.close();
+	}
+
+	private static Integer parseBuildNumber(final String value) {
+		return value == null || value.trim().isEmpty() ? null : Integer.valueOf(value.trim());
 	}
 
 	/**
@@ -259,7 +376,7 @@ public class ProjectSpecificAction implements ProminentProjectAction, SimpleBuil
 	 * @return img img
 	 */
 	public Png getImg(String imageName) {
-		return new Png(new File(picturesFolder, imageName));
+		return new Png(getJob(), picturesFolder, imageName);
 	}
 
 	@Override
@@ -273,29 +390,101 @@ public class ProjectSpecificAction implements ProminentProjectAction, SimpleBuil
 	 * The type Png.
 	 */
 	public static class Png {
-		private final File file;
+		private final Job<?, ?> job;
+
+		private final File picturesFolder;
+
+		private final String name;
 
 		/**
 		 * Instantiates a new Png.
 		 *
-		 * @param file the file
+		 * @param job            the job
+		 * @param picturesFolder the pictures folder
+		 * @param name           the name of the picture
 		 */
-		Png(File file) {
-			this.file = file;
+		Png(Job<?, ?> job, File picturesFolder, String name) {
+			this.job = job;
+			this.picturesFolder = picturesFolder;
+			this.name = name;
 		}
 
 		/**
-		 * This is the method Hudson uses when a dynamic png is referenced in a jelly file.
+		 * This is the method Hudson uses when a dynamic png is referenced in a jelly file. The chart is rendered the
+		 * first time it is requested, the browser then revalidates its copy with the key of the chart. The svg charts
+		 * are written directly to the response.
 		 *
 		 * @param req the req
 		 * @param rsp the rsp
 		 * @throws IOException the io exception
 		 */
 		public void doIndex(final StaplerRequest req, final StaplerResponse rsp) throws IOException {
+			final NeoloadGraphsStatistics trends = PluginUtils.loadTrends(job);
+			final int index = NeoloadGraphsStatistics.getChartIndex(name);
+			final File file;
+			final String eTag;
+			if (trends != null && index >= 0 && index < trends.getChartCount() && name.endsWith(".svg")) {
+				writeSvg(req, rsp, trends, index);
+				return;
+			}
+			if (trends != null && index >= 0 && index < trends.getChartCount()) {
+				eTag = "\"" + trends.getChartKey(index) + "\"";
+				if (eTag.equals(req.getHeader("If-None-Match"))) {
+					rsp.setHeader("ETag", eTag);
+					rsp.setHeader("Cache-Control", CACHE_CONTROL);
+					rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					return;
+				}
+				file = trends.getChart(TrendPictures.getChartsFolder(picturesFolder), index);
+			} else {
+				// The generation listed with the picture, the previous generation is kept while a new one is published.
+				final File folder = TrendPictures.getFolder(picturesFolder, req.getParameter("generation"));
+				file = new File(folder, name);
+				if (!folder.equals(file.getParentFile()) || !file.isFile()) {
+					rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+					return;
+				}
+				eTag = null;
+			}
+			final long lastModified = file.lastModified() / 1000 * 1000;
+			rsp.setDateHeader("Last-Modified", lastModified);
+			rsp.setHeader("Cache-Control", CACHE_CONTROL);
+			if (eTag != null) {
+				rsp.setHeader("ETag", eTag);
+			} else if (req.getHeader("If-None-Match") == null && req.getDateHeader("If-Modified-Since") >= lastModified) {
+				rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
 			rsp.setContentType("image/png");
-			final ServletOutputStream os = rsp.getOutputStream();
-			IOUtils.copy(file, os);
-			os.close();
+			rsp.setHeader("Content-Length", Long.toString(file.length()));
+			// A plain copy through a buffer, the servlet stream gives no file descriptor for the channels to transfer to.
+			try (ServletOutputStream os = rsp.getOutputStream()) {
+				Files.copy(file.toPath(), os);
+			}
+		}
+
+		private static void writeSvg(final StaplerRequest req, final StaplerResponse rsp, final NeoloadGraphsStatistics trends,
+									 final int index) throws IOException {
+			final String acceptEncoding = req.getHeader("Accept-Encoding");
+			final boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+			// The compressed and the plain svg are distinct representations of the chart.
+			final String eTag = "\"" + trends.getChartKey(index) + (gzip ? "-svgz" : "-svg") + "\"";
+			rsp.setHeader("ETag", eTag);
+			rsp.setHeader("Cache-Control", CACHE_CONTROL);
+			rsp.setHeader("Vary", "Accept-Encoding");
+			if (eTag.equals(req.getHeader("If-None-Match"))) {
+				rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+			rsp.setContentType("image/svg+xml;charset=UTF-8");
+			OutputStream os = rsp.getOutputStream();
+			if (gzip) {
+				rsp.setHeader("Content-Encoding", "gzip");
+				os = new GZIPOutputStream(os);
+			}
+			try (Writer writer = new OutputStreamWriter(new BufferedOutputStream(os), StandardCharsets.UTF_8)) {
+				trends.writeSvg(writer, index);
+			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.jenkinsci.plugins.neoload.integration.steps;
+
+import hudson.Extension;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepImpl;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Merges the statistics of the shards of a test split across agents with neoloadRun shardIndex/shardCount into one
+ * result and one trend point of the build.
+ */
+public class NeoloadMergeShardsStep extends AbstractStepImpl {
+
+	private int expectedShards = 0;
+
+	@DataBoundConstructor
+	public NeoloadMergeShardsStep() {
+
+	}
+
+	/**
+	 * Gets expected shards.
+	 *
+	 * @return the number of shards expected, 0 to merge the shards found
+	 */
+	public int getExpectedShards() {
+		return expectedShards;
+	}
+
+	/**
+	 * Sets expected shards.
+	 *
+	 * @param expectedShards the number of shards expected, 0 to merge the shards found
+	 */
+	@DataBoundSetter
+	public void setExpectedShards(final int expectedShards) {
+		this.expectedShards = expectedShards;
+	}
+
+	@Extension
+	public static class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+		public DescriptorImpl() {
+			super(NeoloadMergeShardsStepExecution.class);
+		}
+
+		@Override
+		public String getFunctionName() {
+			return "neoloadMergeShards";
+		}
+
+		@Override
+		public String getDisplayName() {
+			return "Merge the NeoLoad results of the shards of a test";
+		}
+	}
+}
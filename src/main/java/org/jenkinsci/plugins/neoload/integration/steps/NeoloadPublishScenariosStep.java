@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.jenkinsci.plugins.neoload.integration.steps;
+
+import hudson.Extension;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepImpl;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes the scenarios run in parallel with neoloadRun trendSeries as series side by side in the trends of the job,
+ * the trends are updated once for all the scenarios.
+ */
+public class NeoloadPublishScenariosStep extends AbstractStepImpl {
+
+	private final String scenarios;
+
+	/**
+	 * Instantiates a new Neoload publish scenarios step.
+	 *
+	 * @param scenarios the trend series of the scenarios, separated by commas or new lines
+	 */
+	@DataBoundConstructor
+	public NeoloadPublishScenariosStep(final String scenarios) {
+		this.scenarios = scenarios;
+	}
+
+	/**
+	 * Gets scenarios.
+	 *
+	 * @return the trend series of the scenarios, separated by commas or new lines
+	 */
+	public String getScenarios() {
+		return scenarios;
+	}
+
+	/**
+	 * Gets the trend series of the scenarios.
+	 *
+	 * @return the names of the series
+	 */
+	public List<String> getSeries() {
+		final List<String> series = new ArrayList<>();
+		for (String name : StringUtils.split(StringUtils.defaultString(scenarios), ",\n")) {
+			if (StringUtils.isNotBlank(name)) {
+				series.add(name.trim());
+			}
+		}
+		return series;
+	}
+
+	@Extension
+	public static class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+		public DescriptorImpl() {
+			super(NeoloadPublishScenariosStepExecution.class);
+		}
+
+		@Override
+		public String getFunctionName() {
+			return "neoloadPublishScenarios";
+		}
+
+		@Override
+		public String getDisplayName() {
+			return "Publish NeoLoad scenarios side by side in the trends";
+		}
+	}
+}
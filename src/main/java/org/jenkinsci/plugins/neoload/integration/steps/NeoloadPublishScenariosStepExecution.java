@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.jenkinsci.plugins.neoload.integration.steps;
+
+import com.google.inject.Inject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.neoload.integration.ProjectSpecificAction;
+import org.jenkinsci.plugins.neoload.integration.supporting.NeoloadException;
+import org.jenkinsci.plugins.neoload.integration.supporting.NeoloadTrendSeries;
+import org.jenkinsci.plugins.neoload.integration.supporting.PluginUtils;
+import org.jenkinsci.plugins.neoload.integration.supporting.ReportMetrics;
+import org.jenkinsci.plugins.workflow.steps.AbstractSynchronousNonBlockingStepExecution;
+import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
+
+import java.io.File;
+import java.util.List;
+
+public class NeoloadPublishScenariosStepExecution extends AbstractSynchronousNonBlockingStepExecution<Void> {
+
+	@StepContextParameter
+	private transient Run run;
+
+	@StepContextParameter
+	private transient TaskListener listener;
+
+	@Inject
+	private transient NeoloadPublishScenariosStep step;
+
+	@Override
+	protected Void run() throws Exception {
+		final List<String> series = step.getSeries();
+		if (series.isEmpty()) {
+			throw new NeoloadException("No NeoLoad scenario to publish.");
+		}
+		for (String name : series) {
+			if (!new File(run.getRootDir(), ReportMetrics.getSeriesFileName(name)).isFile()) {
+				listener.getLogger().println("WARNING: no NeoLoad result found in this build for the scenario " + name);
+			}
+		}
+		if (NeoloadTrendSeries.addSeries(run.getParent(), series)) {
+			listener.getLogger().println("New NeoLoad trend series, the trends are rebuilt.");
+		}
+
+		listener.getLogger().println("Building trends...");
+		PluginUtils.updateGraph(run);
+		if (run.getAction(ProjectSpecificAction.class) == null) {
+			run.addAction(new ProjectSpecificAction(run));
+		}
+		return null;
+	}
+}
@@ -47,6 +47,7 @@ import java.util.Map;
 public class NeoloadRefreshTrendStep extends AbstractStepImpl implements NeoloadGraphDefinitionStep {
 
 	private int maxTrends=0;
+	private boolean svgTrends=false;
 	private boolean showTrendAverageResponse=false;
 	private boolean showTrendErrorRate=false;
 	private List<GraphOptionsInfo> graphs;
@@ -79,6 +80,27 @@ public class NeoloadRefreshTrendStep extends AbstractStepImpl implements Neoload
 		this.maxTrends = maxTrends;
 	}
 
+	/**
+	 * Is svg trends boolean.
+	 *
+	 * @return true if the trend charts are drawn as svg
+	 */
+	@Override
+	public boolean isSvgTrends() {
+		return svgTrends;
+	}
+
+	/**
+	 * Sets svg trends.
+	 *
+	 * @param svgTrends true to draw the trend charts as svg
+	 */
+	@Override
+	@DataBoundSetter
+	public void setSvgTrends(final boolean svgTrends) {
+		this.svgTrends = svgTrends;
+	}
+
 	/**
 	 * Is show trend average response boolean.
 	 *
@@ -62,12 +62,13 @@ public class NeoloadRefreshTrendStepExecution  extends AbstractSynchronousNonBlo
 			final SimpleBuildOptionBuilder pluginOptions = getPluginOptionBuilder()
 					.setGraphOptionsInfos(neoloadRefreshTrendStep.getGraphOptionsInfo())
 					.setMaxTrends(neoloadRefreshTrendStep.getMaxTrends())
+					.setSvgTrends(neoloadRefreshTrendStep.isSvgTrends())
 					.setShowTrendAverageResponse(neoloadRefreshTrendStep.isShowTrendAverageResponse())
 					.setShowTrendErrorRate(neoloadRefreshTrendStep.isShowTrendErrorRate());
 			project.addProperty(pluginOptions.build());
 		}
 		listener.getLogger().println("Building trends...");
-		PluginUtils.buildGraph(project);
+		PluginUtils.updateGraph(run);
 		run.addAction(new ProjectSpecificAction(run));
 		return null;
 	}
@@ -111,6 +111,7 @@ public class NeoloadRunStep extends AbstractStepImpl implements NeoloadGraphDefi
 	private String testDescription = "";
 	private String customCommandLineOptions = "";
 	private int maxTrends;
+	private boolean svgTrends;
 	private boolean showTrendAverageResponse = DEFAULT_SHOW_TREND_AVERAGE_RESPONSE;
 	private boolean showTrendErrorRate = DEFAULT_SHOW_TREND_ERROR_RATE;
 	private List<GraphOptionsInfo> graphs;
@@ -122,6 +123,12 @@ public class NeoloadRunStep extends AbstractStepImpl implements NeoloadGraphDefi
 	private String licenseDuration;
 	private boolean publishTestResults;
 	private boolean autoArchive = true;
+	private List<LiveAbortRule> liveAbortRules;
+	private int shardIndex;
+	private int shardCount;
+	private String trendSeries;
+	private boolean deduplicateReportAssets;
+	private boolean compressReports;
 
 
 	/**
@@ -417,6 +424,25 @@ public class NeoloadRunStep extends AbstractStepImpl implements NeoloadGraphDefi
 		this.maxTrends = maxTrends;
 	}
 
+	/**
+	 * Is svg trends boolean.
+	 *
+	 * @return true if the trend charts are drawn as svg
+	 */
+	public boolean isSvgTrends() {
+		return svgTrends;
+	}
+
+	/**
+	 * Sets svg trends.
+	 *
+	 * @param svgTrends true to draw the trend charts as svg
+	 */
+	@DataBoundSetter
+	public void setSvgTrends(final boolean svgTrends) {
+		this.svgTrends = svgTrends;
+	}
+
 	/**
 	 * Is show trend average response boolean.
 	 *
@@ -566,6 +592,120 @@ public class NeoloadRunStep extends AbstractStepImpl implements NeoloadGraphDefi
 		this.autoArchive = autoArchive;
 	}
 
+	/**
+	 * Gets live abort rules.
+	 *
+	 * @return the live abort rules
+	 */
+	public List<LiveAbortRule> getLiveAbortRules() {
+		return liveAbortRules;
+	}
+
+	/**
+	 * Gets shard index.
+	 *
+	 * @return the index of this shard, from 0
+	 */
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	/**
+	 * Sets shard index.
+	 *
+	 * @param shardIndex the index of this shard, from 0
+	 */
+	@DataBoundSetter
+	public void setShardIndex(final int shardIndex) {
+		this.shardIndex = shardIndex;
+	}
+
+	/**
+	 * Gets shard count.
+	 *
+	 * @return the number of shards, 0 or 1 when the test isn't split across agents
+	 */
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * Sets shard count.
+	 *
+	 * @param shardCount the number of shards
+	 */
+	@DataBoundSetter
+	public void setShardCount(final int shardCount) {
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * Gets trend series.
+	 *
+	 * @return the trend series of the run, null or empty for the job trends
+	 */
+	public String getTrendSeries() {
+		return trendSeries;
+	}
+
+	/**
+	 * Sets trend series.
+	 *
+	 * @param trendSeries the trend series of the run
+	 */
+	@DataBoundSetter
+	public void setTrendSeries(final String trendSeries) {
+		this.trendSeries = trendSeries;
+	}
+
+	/**
+	 * Is deduplicate report assets boolean.
+	 *
+	 * @return true if the assets of the html report are stored once per job
+	 */
+	public boolean isDeduplicateReportAssets() {
+		return deduplicateReportAssets;
+	}
+
+	/**
+	 * Sets deduplicate report assets.
+	 *
+	 * @param deduplicateReportAssets true to store the assets of the html report once per job
+	 */
+	@DataBoundSetter
+	public void setDeduplicateReportAssets(final boolean deduplicateReportAssets) {
+		this.deduplicateReportAssets = deduplicateReportAssets;
+	}
+
+	/**
+	 * Is compress reports boolean.
+	 *
+	 * @return true if the xml and html reports are archived compressed
+	 */
+	public boolean isCompressReports() {
+		return compressReports;
+	}
+
+	/**
+	 * Sets compress reports.
+	 *
+	 * @param compressReports true to archive the xml and html reports compressed
+	 */
+	@DataBoundSetter
+	public void setCompressReports(final boolean compressReports) {
+		this.compressReports = compressReports;
+	}
+
+	/**
+	 * Sets live abort rules.
+	 *
+	 * @param liveAbortRules the live abort rules
+	 */
+	@DataBoundSetter
+	public void setLiveAbortRules(final List<LiveAbortRule> liveAbortRules) {
+		this.liveAbortRules = liveAbortRules;
+	}
+
 	/**
 	 * The type Descriptor.
 	 */
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.model.Run;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The archived artifacts of a build indexed by the suffixes of their relative paths. The relative paths are reversed
+ * and sorted, the artifacts ending with a suffix are then a range found by a binary search.
+ */
+final class ArtifactIndex {
+
+	/**
+	 * The indexes of the finished builds. Listing the artifacts of a build walks its archive directory, the index is
+	 * kept a while for the next lookups of the trend building or of the build pages.
+	 */
+	private static final Cache<Run<?, ?>, ArtifactIndex> CACHE = CacheBuilder.newBuilder()
+			.weakKeys()
+			.maximumSize(256)
+			.expireAfterAccess(10, TimeUnit.MINUTES)
+			.build();
+
+	private final Run.Artifact[] artifacts;
+
+	/**
+	 * The reversed relative paths, sorted.
+	 */
+	private final String[] reversedPaths;
+
+	/**
+	 * The position in {@link #artifacts} of the artifact of each reversed path.
+	 */
+	private final int[] positions;
+
+	/**
+	 * Instantiates a new Artifact index.
+	 *
+	 * @param artifacts the artifacts
+	 */
+	ArtifactIndex(final List<?> artifacts) {
+		final int size = artifacts.size();
+		this.artifacts = new Run.Artifact[size];
+		final Entry[] entries = new Entry[size];
+		for (int i = 0; i < size; i++) {
+			this.artifacts[i] = (Run.Artifact) artifacts.get(i);
+			entries[i] = new Entry(reverse(this.artifacts[i].relativePath), i);
+		}
+		Arrays.sort(entries, new Comparator<Entry>() {
+			@Override
+			public int compare(final Entry o1, final Entry o2) {
+				return o1.reversedPath.compareTo(o2.reversedPath);
+			}
+		});
+		reversedPaths = new String[size];
+		positions = new int[size];
+		for (int i = 0; i < size; i++) {
+			reversedPaths[i] = entries[i].reversedPath;
+			positions[i] = entries[i].position;
+		}
+	}
+
+	/**
+	 * Gets the index of the artifacts of a build. The index of a finished build is cached.
+	 *
+	 * @param build the build
+	 * @return the artifact index
+	 */
+	static ArtifactIndex of(final Run<?, ?> build) {
+		if (build.isBuilding()) {
+			return new ArtifactIndex(build.getArtifacts());
+		}
+		ArtifactIndex index = CACHE.getIfPresent(build);
+		if (index == null) {
+			index = new ArtifactIndex(build.getArtifacts());
+			CACHE.put(build, index);
+		}
+		return index;
+	}
+
+	private static String reverse(final String s) {
+		return new StringBuilder(s).reverse().toString();
+	}
+
+	/**
+	 * Find the first artifact, in the order of the build artifacts, whose relative path ends with a suffix.
+	 *
+	 * @param suffix the suffix
+	 * @return the artifact or null
+	 */
+	Run.Artifact findBySuffix(final String suffix) {
+		final String reversedSuffix = reverse(suffix);
+		int low = 0;
+		int high = reversedPaths.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (reversedPaths[middle].compareTo(reversedSuffix) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		int first = -1;
+		for (int i = low; i < reversedPaths.length && reversedPaths[i].startsWith(reversedSuffix); i++) {
+			if (first < 0 || positions[i] < first) {
+				first = positions[i];
+			}
+		}
+		return first < 0 ? null : artifacts[first];
+	}
+
+	private static final class Entry {
+		private final String reversedPath;
+		private final int position;
+
+		private Entry(final String reversedPath, final int position) {
+			this.reversedPath = reversedPath;
+			this.position = position;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The threads rendering the trend charts. Rendering is bound by the processors, the pool is shared by every job and
+ * every request so that the pages listing many charts don't render more charts at once than there are processors.
+ */
+final class ChartRendererPool {
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private static final ThreadPoolExecutor EXECUTOR = createExecutor(Runtime.getRuntime().availableProcessors());
+
+	private ChartRendererPool() {
+		throw new IllegalAccessError();
+	}
+
+	private static ThreadPoolExecutor createExecutor(final int threads) {
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new NamingThreadFactory(new DaemonThreadFactory(), "NeoLoad chart renderer"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Run the tasks on the pool and wait for their results.
+	 *
+	 * @param tasks the tasks, they must not submit tasks to this pool
+	 * @param <T>   the type of the results
+	 * @return the results, in the order of the tasks
+	 * @throws InterruptedException the interrupted exception
+	 * @throws ExecutionException   if a task threw an exception
+	 */
+	static <T> List<T> invokeAll(final List<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+		final List<T> results = new ArrayList<>(tasks.size());
+		for (Future<T> future : EXECUTOR.invokeAll(tasks)) {
+			results.add(future.get());
+		}
+		return results;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Collects the statistics of a NeoLoad xml report on the machine where the report was written, only the
+ * {@link ReportMetrics} are sent back to the master.
+ */
+public final class CollectMetricsCallable extends MasterToSlaveFileCallable<ReportMetrics> {
+
+	/**
+	 * Generated.
+	 */
+	private static final long serialVersionUID = 2938143775417340511L;
+
+	/**
+	 * Invoke report metrics.
+	 *
+	 * @param report  the xml report
+	 * @param channel the channel
+	 * @return the statistics of the report or null if the report doesn't exist
+	 * @throws IOException the io exception
+	 */
+	@Override
+	public ReportMetrics invoke(final File report, final VirtualChannel channel) throws IOException {
+		if (!report.isFile()) {
+			return null;
+		}
+		try {
+			return NeoloadReportExtractor.collectMetrics(report);
+		} catch (XMLStreamException e) {
+			throw new IOException("Unable to read the NeoLoad report " + report.getAbsolutePath(), e);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses a report with gzip on the machine where the report was written, next to the report, so the compressed
+ * report is archived instead of the report.
+ */
+public final class CompressReportCallable extends MasterToSlaveFileCallable<Boolean> {
+
+	/**
+	 * Generated.
+	 */
+	private static final long serialVersionUID = 7326618470917358804L;
+
+	/**
+	 * Invoke boolean.
+	 *
+	 * @param report  the report
+	 * @param channel the channel
+	 * @return true if the report was compressed, false if it doesn't exist
+	 * @throws IOException the io exception
+	 */
+	@Override
+	public Boolean invoke(final File report, final VirtualChannel channel) throws IOException {
+		if (!report.isFile()) {
+			return false;
+		}
+		final File compressed = new File(report.getParentFile(), report.getName() + ReportCompression.GZIP_EXTENSION);
+		final File tmp = new File(report.getParentFile(), compressed.getName() + ".tmp");
+		final byte[] buffer = new byte[8192];
+		try (InputStream in = new FileInputStream(report);
+		     OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp), buffer.length)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+		Files.move(tmp.toPath(), compressed.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import hudson.model.Job;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the trend rebuilds requested from the web pages on a few shared threads. The requests of a job are coalesced:
+ * a job has at most one rebuild queued or running and one pending, a new request replaces the pending one.
+ */
+public class GraphBuildQueue {
+	private static final Logger LOGGER = Logger.getLogger(GraphBuildQueue.class.getName());
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private final ThreadPoolExecutor executor;
+
+	private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+	private final AtomicInteger pendingRebuilds = new AtomicInteger();
+
+	private final AtomicLong completedRebuilds = new AtomicLong();
+
+	private final AtomicLong totalLatency = new AtomicLong();
+
+	private volatile long lastLatency = 0;
+
+	/**
+	 * Instantiates a new Graph build queue.
+	 *
+	 * @param threads the number of threads running the rebuilds
+	 */
+	public GraphBuildQueue(final int threads) {
+		executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new NamingThreadFactory(new DaemonThreadFactory(), "NeoLoad trend builder"));
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	private Slot getSlot(final Job<?, ?> project) {
+		final String key = LockManager.getKeyFromProject(project);
+		final Slot slot = slots.get(key);
+		if (slot != null) {
+			return slot;
+		}
+		final Slot newSlot = new Slot();
+		final Slot previous = slots.putIfAbsent(key, newSlot);
+		return previous == null ? newSlot : previous;
+	}
+
+	/**
+	 * Schedule a rebuild of the trends of a job.
+	 *
+	 * @param project the project
+	 * @param rebuild the rebuild
+	 * @return false if the request was coalesced with a pending rebuild of the job.
+	 */
+	public boolean schedule(final Job<?, ?> project, final Runnable rebuild) {
+		final Slot slot = getSlot(project);
+		final long now = System.nanoTime();
+		synchronized (slot) {
+			if (slot.active) {
+				final boolean coalesced = slot.pending != null;
+				slot.pending = rebuild;
+				if (!coalesced) {
+					slot.pendingSince = now;
+					pendingRebuilds.incrementAndGet();
+				}
+				return !coalesced;
+			}
+			slot.active = true;
+			slot.completion = SettableFuture.create();
+		}
+		executor.execute(new Task(slot, rebuild, now));
+		return true;
+	}
+
+	/**
+	 * Is scheduled boolean.
+	 *
+	 * @param project the project
+	 * @return true if a rebuild of the job is queued, running or pending.
+	 */
+	public boolean isScheduled(final Job<?, ?> project) {
+		final Slot slot = slots.get(LockManager.getKeyFromProject(project));
+		if (slot == null) {
+			return false;
+		}
+		synchronized (slot) {
+			return slot.active;
+		}
+	}
+
+	/**
+	 * Gets completion.
+	 *
+	 * @param project the project
+	 * @return a future done when the job has no rebuild queued, running or pending anymore, already done if there is
+	 * none.
+	 */
+	public ListenableFuture<Void> getCompletion(final Job<?, ?> project) {
+		final Slot slot = slots.get(LockManager.getKeyFromProject(project));
+		if (slot != null) {
+			synchronized (slot) {
+				if (slot.active) {
+					return slot.completion;
+				}
+			}
+		}
+		return Futures.<Void>immediateFuture(null);
+	}
+
+	/**
+	 * Gets queue depth.
+	 *
+	 * @return the number of rebuilds waiting for a thread or for the running rebuild of their job.
+	 */
+	public int getQueueDepth() {
+		return executor.getQueue().size() + pendingRebuilds.get();
+	}
+
+	/**
+	 * Gets the number of rebuilds running.
+	 *
+	 * @return the active count
+	 */
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * Gets completed rebuilds.
+	 *
+	 * @return the number of rebuilds run since the start
+	 */
+	public long getCompletedRebuilds() {
+		return completedRebuilds.get();
+	}
+
+	/**
+	 * Gets last latency.
+	 *
+	 * @return the time in milliseconds between the request and the end of the last rebuild.
+	 */
+	public long getLastLatency() {
+		return lastLatency;
+	}
+
+	/**
+	 * Gets average latency.
+	 *
+	 * @return the average time in milliseconds between a request and the end of its rebuild.
+	 */
+	public long getAverageLatency() {
+		final long completed = completedRebuilds.get();
+		return completed == 0 ? 0 : totalLatency.get() / completed;
+	}
+
+	private void completed(final long requestTime) {
+		final long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestTime);
+		lastLatency = latency;
+		totalLatency.addAndGet(latency);
+		completedRebuilds.incrementAndGet();
+		LOGGER.log(Level.FINE, "NeoLoad trends rebuilt " + latency + " ms after the request");
+	}
+
+	/**
+	 * The rebuilds of a job.
+	 */
+	private static final class Slot {
+		/**
+		 * A rebuild is queued or running.
+		 */
+		private boolean active = false;
+		private Runnable pending = null;
+		private long pendingSince;
+		/**
+		 * Done when the slot becomes inactive.
+		 */
+		private SettableFuture<Void> completion = null;
+	}
+
+	private final class Task implements Runnable {
+		private final Slot slot;
+		private final Runnable rebuild;
+		private final long requestTime;
+
+		private Task(final Slot slot, final Runnable rebuild, final long requestTime) {
+			this.slot = slot;
+			this.rebuild = rebuild;
+			this.requestTime = requestTime;
+		}
+
+		@Override
+		public void run() {
+			try {
+				rebuild.run();
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Exception occurs during the trend building", e);
+			} finally {
+				completed(requestTime);
+				final Runnable next;
+				final long nextRequestTime;
+				final SettableFuture<Void> completion;
+				synchronized (slot) {
+					next = slot.pending;
+					nextRequestTime = slot.pendingSince;
+					slot.pending = null;
+					slot.active = next != null;
+					completion = slot.completion;
+				}
+				if (next == null) {
+					completion.set(null);
+				} else {
+					pendingRebuilds.decrementAndGet();
+					executor.execute(new Task(slot, next, nextRequestTime));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hashes the files of a report assets directory on the machine where the report was written, only the hashes are sent
+ * back to the master so it transfers the assets missing from the {@link ReportAssetStore}.
+ */
+public final class HashReportAssetsCallable extends MasterToSlaveFileCallable<Map<String, String>> {
+
+	/**
+	 * Generated.
+	 */
+	private static final long serialVersionUID = -4460179371585612964L;
+
+	/**
+	 * Invoke map.
+	 *
+	 * @param directory the assets directory
+	 * @param channel   the channel
+	 * @return the hash of each file by path relative to the directory, empty if the directory doesn't exist
+	 * @throws IOException the io exception
+	 */
+	@Override
+	public Map<String, String> invoke(final File directory, final VirtualChannel channel) throws IOException {
+		final Map<String, String> hashes = new TreeMap<>();
+		if (directory.isDirectory()) {
+			hashDirectory(directory, "", hashes);
+		}
+		return hashes;
+	}
+
+	private static void hashDirectory(final File directory, final String prefix, final Map<String, String> hashes) throws IOException {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException("Unable to list " + directory.getAbsolutePath());
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				hashDirectory(file, prefix + file.getName() + "/", hashes);
+			} else if (file.isFile()) {
+				hashes.put(prefix + file.getName(), hash(file));
+			}
+		}
+	}
+
+	/**
+	 * Hash a file.
+	 *
+	 * @param file the file
+	 * @return the hexadecimal SHA-256 of the content of the file
+	 * @throws IOException the io exception
+	 */
+	static String hash(final File file) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		final byte[] buffer = new byte[8192];
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return Util.toHexString(digest.digest());
+	}
+}
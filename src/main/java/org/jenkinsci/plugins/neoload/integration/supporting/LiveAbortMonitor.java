@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.Proc;
+import hudson.model.Computer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Evaluates the live abort rules on the statistics of a running test and kills the NeoLoad process as soon as a rule
+ * is breached. The statistics are forwarded to the next receiver.
+ */
+public final class LiveAbortMonitor implements LiveOutputStream.Receiver {
+
+	private static final Logger LOGGER = Logger.getLogger(LiveAbortMonitor.class.getName());
+
+	private final List<LiveAbortRule> rules;
+	private final LiveOutputStream.Receiver next;
+	/**
+	 * The number of consecutive breaching intervals of each rule.
+	 */
+	private final int[] breaches;
+	private LiveStatistics previous = null;
+	private Proc process = null;
+	private String breach = null;
+
+	/**
+	 * Instantiates a new Live abort monitor.
+	 *
+	 * @param rules the rules, may be null
+	 * @param next  the receiver of the statistics
+	 */
+	public LiveAbortMonitor(final List<LiveAbortRule> rules, final LiveOutputStream.Receiver next) {
+		this.rules = rules == null ? new ArrayList<LiveAbortRule>() : new ArrayList<>(rules);
+		this.next = next;
+		this.breaches = new int[this.rules.size()];
+	}
+
+	@Override
+	public void receive(final LiveStatistics statistics) {
+		next.receive(statistics);
+		final Proc toKill;
+		synchronized (this) {
+			if (breach == null) {
+				for (int i = 0; i < rules.size() && breach == null; i++) {
+					final LiveAbortRule rule = rules.get(i);
+					if (rule.isBreached(rule.getValue(previous, statistics))) {
+						breaches[i]++;
+						if (breaches[i] >= rule.getIntervals()) {
+							breach = rule + " at " + statistics.getElapsedTime();
+						}
+					} else {
+						breaches[i] = 0;
+					}
+				}
+			}
+			previous = statistics;
+			toKill = breach == null ? null : process;
+			if (toKill != null) {
+				process = null;
+			}
+		}
+		kill(toKill);
+	}
+
+	/**
+	 * Attach the NeoLoad process, killed at once if a rule is already breached.
+	 *
+	 * @param proc the process
+	 */
+	public void attach(final Proc proc) {
+		final boolean breached;
+		synchronized (this) {
+			breached = breach != null;
+			process = breached ? null : proc;
+		}
+		if (breached) {
+			kill(proc);
+		}
+	}
+
+	/**
+	 * Gets breach.
+	 *
+	 * @return the description of the breached rule or null if no rule was breached
+	 */
+	public synchronized String getBreach() {
+		return breach;
+	}
+
+	/**
+	 * Kill the process in another thread, killing a local process waits for its output to be copied and the statistics
+	 * are received on the thread copying the output.
+	 */
+	private static void kill(final Proc proc) {
+		if (proc == null) {
+			return;
+		}
+		Computer.threadPoolForRemoting.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					proc.kill();
+				} catch (IOException e) {
+					LOGGER.log(Level.WARNING, "Unable to stop the NeoLoad process", e);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+	}
+}
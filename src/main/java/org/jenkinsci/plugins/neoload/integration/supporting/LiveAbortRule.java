@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import hudson.util.ListBoxModel.Option;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A rule evaluated on the live statistics of a running test, the test is stopped when the statistic breaches the
+ * threshold for a number of consecutive intervals.
+ */
+public class LiveAbortRule extends AbstractDescribableImpl<LiveAbortRule> implements Serializable {
+
+	/**
+	 * The percentage of hits in error since the previous interval.
+	 */
+	public static final String STATISTIC_ERROR_RATE = "errorRate";
+	/**
+	 * The total number of errors.
+	 */
+	public static final String STATISTIC_ERRORS = "errors";
+	/**
+	 * The hits per second.
+	 */
+	public static final String STATISTIC_HITS_PER_SECOND = "hitsPerSecond";
+	/**
+	 * The number of running virtual users.
+	 */
+	public static final String STATISTIC_VIRTUAL_USERS = "virtualUsers";
+
+	/**
+	 * Breached when the statistic is greater than the threshold.
+	 */
+	public static final String OPERATOR_GREATER = "greater";
+	/**
+	 * Breached when the statistic is lower than the threshold.
+	 */
+	public static final String OPERATOR_LOWER = "lower";
+
+	/**
+	 * Generated.
+	 */
+	private static final long serialVersionUID = 3155409823301276645L;
+
+	private final String statistic;
+	private final String operator;
+	private final float threshold;
+	private final int intervals;
+
+	/**
+	 * Instantiates a new Live abort rule.
+	 *
+	 * @param statistic the statistic
+	 * @param operator  the operator
+	 * @param threshold the threshold
+	 * @param intervals the number of consecutive intervals breaching the threshold before the test is stopped
+	 */
+	@DataBoundConstructor
+	public LiveAbortRule(final String statistic, final String operator, final float threshold, final int intervals) {
+		this.statistic = statistic;
+		this.operator = operator;
+		this.threshold = threshold;
+		this.intervals = Math.max(1, intervals);
+	}
+
+	/**
+	 * Gets statistic.
+	 *
+	 * @return the statistic
+	 */
+	public String getStatistic() {
+		return statistic;
+	}
+
+	/**
+	 * Gets operator.
+	 *
+	 * @return the operator
+	 */
+	public String getOperator() {
+		return operator;
+	}
+
+	/**
+	 * Gets threshold.
+	 *
+	 * @return the threshold
+	 */
+	public float getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Gets intervals.
+	 *
+	 * @return the number of consecutive intervals
+	 */
+	public int getIntervals() {
+		return intervals;
+	}
+
+	/**
+	 * Is known statistic boolean.
+	 *
+	 * @param statistic the statistic
+	 * @return true if the statistic is one of the live statistics a rule can evaluate
+	 */
+	public static boolean isKnownStatistic(final String statistic) {
+		return STATISTIC_ERROR_RATE.equals(statistic) || STATISTIC_ERRORS.equals(statistic)
+				|| STATISTIC_HITS_PER_SECOND.equals(statistic) || STATISTIC_VIRTUAL_USERS.equals(statistic);
+	}
+
+	/**
+	 * Is known operator boolean.
+	 *
+	 * @param operator the operator
+	 * @return true if the operator is greater or lower
+	 */
+	public static boolean isKnownOperator(final String operator) {
+		return OPERATOR_GREATER.equals(operator) || OPERATOR_LOWER.equals(operator);
+	}
+
+	/**
+	 * Check the statistic and the operator of the rules. The rules set with the pipeline step or read from the job
+	 * configuration don't go through the form validation, a rule that would never be breached fails the build instead.
+	 *
+	 * @param rules the rules, may be null
+	 * @throws NeoloadException if a rule has an unknown statistic or operator
+	 */
+	public static void checkRules(final List<LiveAbortRule> rules) {
+		if (rules == null) {
+			return;
+		}
+		for (LiveAbortRule rule : rules) {
+			if (!isKnownStatistic(rule.getStatistic())) {
+				throw new NeoloadException("Unknown statistic of the live abort rule: " + rule.getStatistic() + ".");
+			}
+			if (!isKnownOperator(rule.getOperator())) {
+				throw new NeoloadException("Unknown operator of the live abort rule: " + rule.getOperator() + ".");
+			}
+		}
+	}
+
+	/**
+	 * Gets the value of the statistic of the rule.
+	 *
+	 * @param previous the previous statistics or null for the first ones
+	 * @param current  the current statistics
+	 * @return the value or NaN if it's unknown
+	 */
+	public float getValue(final LiveStatistics previous, final LiveStatistics current) {
+		if (STATISTIC_ERRORS.equals(statistic)) {
+			return current.getErrors() < 0 ? Float.NaN : current.getErrors();
+		}
+		if (STATISTIC_HITS_PER_SECOND.equals(statistic)) {
+			return current.getHitsPerSecond();
+		}
+		if (STATISTIC_VIRTUAL_USERS.equals(statistic)) {
+			return current.getVirtualUsers() < 0 ? Float.NaN : current.getVirtualUsers();
+		}
+		if (STATISTIC_ERROR_RATE.equals(statistic)) {
+			if (previous == null || previous.getErrors() < 0 || current.getErrors() < 0
+					|| previous.getElapsedSeconds() < 0 || current.getElapsedSeconds() <= previous.getElapsedSeconds()) {
+				return Float.NaN;
+			}
+			final float hits = current.getHitsPerSecond() * (current.getElapsedSeconds() - previous.getElapsedSeconds());
+			if (!(hits > 0)) {
+				return Float.NaN;
+			}
+			return Math.min(100f, (current.getErrors() - previous.getErrors()) * 100f / hits);
+		}
+		return Float.NaN;
+	}
+
+	/**
+	 * Test if a value breaches the threshold.
+	 *
+	 * @param value the value
+	 * @return true if the value breaches the threshold, false for NaN
+	 */
+	public boolean isBreached(final float value) {
+		if (Float.isNaN(value)) {
+			return false;
+		}
+		if (OPERATOR_LOWER.equals(operator)) {
+			return value < threshold;
+		}
+		return value > threshold;
+	}
+
+	@Override
+	public String toString() {
+		return statistic + (OPERATOR_LOWER.equals(operator) ? " < " : " > ") + threshold + " for " + intervals + " interval(s)";
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		return EqualsBuilder.reflectionEquals(this, obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return HashCodeBuilder.reflectionHashCode(this);
+	}
+
+	/**
+	 * The type Descriptor.
+	 */
+	@Extension
+	public static class DescriptorImpl extends Descriptor<LiveAbortRule> {
+		/**
+		 * Gets display name.
+		 *
+		 * @return the display name
+		 */
+		public String getDisplayName() {
+			return "Live abort rule";
+		}
+
+		/**
+		 * Do fill statistic items list box model.
+		 *
+		 * @return the list box model
+		 */
+		public ListBoxModel doFillStatisticItems() {
+			final ListBoxModel listBoxModel = new ListBoxModel();
+			listBoxModel.add(new Option("Error %", STATISTIC_ERROR_RATE));
+			listBoxModel.add(new Option("Errors", STATISTIC_ERRORS));
+			listBoxModel.add(new Option("Hits/s", STATISTIC_HITS_PER_SECOND));
+			listBoxModel.add(new Option("Virtual users", STATISTIC_VIRTUAL_USERS));
+			return listBoxModel;
+		}
+
+		/**
+		 * Do fill operator items list box model.
+		 *
+		 * @return the list box model
+		 */
+		public ListBoxModel doFillOperatorItems() {
+			final ListBoxModel listBoxModel = new ListBoxModel();
+			listBoxModel.add(new Option("Greater than", OPERATOR_GREATER));
+			listBoxModel.add(new Option("Lower than", OPERATOR_LOWER));
+			return listBoxModel;
+		}
+
+		/**
+		 * Do check statistic form validation.
+		 *
+		 * @param statistic the statistic
+		 * @return the form validation
+		 */
+		public FormValidation doCheckStatistic(@QueryParameter final String statistic) {
+			if (isKnownStatistic(statistic)) {
+				return FormValidation.ok();
+			}
+			return FormValidation.error("Unknown statistic, use " + STATISTIC_ERROR_RATE + ", " + STATISTIC_ERRORS + ", "
+					+ STATISTIC_HITS_PER_SECOND + " or " + STATISTIC_VIRTUAL_USERS);
+		}
+
+		/**
+		 * Do check operator form validation.
+		 *
+		 * @param operator the operator
+		 * @return the form validation
+		 */
+		public FormValidation doCheckOperator(@QueryParameter final String operator) {
+			if (isKnownOperator(operator)) {
+				return FormValidation.ok();
+			}
+			return FormValidation.error("Unknown operator, use " + OPERATOR_GREATER + " or " + OPERATOR_LOWER);
+		}
+
+		/**
+		 * Do check intervals form validation.
+		 *
+		 * @param intervals the intervals
+		 * @return the form validation
+		 */
+		public FormValidation doCheckIntervals(@QueryParameter final String intervals) {
+			return FormValidation.validatePositiveInteger(intervals);
+		}
+	}
+}
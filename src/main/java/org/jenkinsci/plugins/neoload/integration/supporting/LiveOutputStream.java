@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.console.LineTransformationOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Copies the NeoLoad output to the build log and sends the running statistics found on each line to a receiver as
+ * soon as the line is written.
+ */
+public final class LiveOutputStream extends LineTransformationOutputStream {
+
+	private static final Logger LOGGER = Logger.getLogger(LiveOutputStream.class.getName());
+
+	/**
+	 * Receives the statistics parsed from the output.
+	 */
+	public interface Receiver {
+		/**
+		 * Receive the statistics of a line.
+		 *
+		 * @param statistics the statistics
+		 */
+		void receive(LiveStatistics statistics);
+	}
+
+	private final OutputStream out;
+	private final Charset charset;
+	private final Receiver receiver;
+
+	/**
+	 * Instantiates a new Live output stream.
+	 *
+	 * @param out      the build log, not closed by this stream
+	 * @param charset  the charset of the output
+	 * @param receiver the receiver
+	 */
+	public LiveOutputStream(final OutputStream out, final Charset charset, final Receiver receiver) {
+		this.out = out;
+		this.charset = charset;
+		this.receiver = receiver;
+	}
+
+	@Override
+	protected void eol(final byte[] bytes, final int length) throws IOException {
+		out.write(bytes, 0, length);
+		final LiveStatistics statistics = LiveStatisticsParser.parse(new String(bytes, 0, length, charset).trim(),
+				System.currentTimeMillis());
+		if (statistics != null) {
+			try {
+				receiver.receive(statistics);
+			} catch (RuntimeException e) {
+				// Never break the build log because of the live statistics.
+				LOGGER.log(Level.WARNING, "Unable to publish the NeoLoad live statistics", e);
+			}
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		out.flush();
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import java.io.Serializable;
+
+/**
+ * The running statistics printed by NeoLoad on its console output during a test.
+ * <p>
+ * A statistic not found on the line is -1, or NaN for the hits per second.
+ */
+public final class LiveStatistics implements Serializable {
+
+	/**
+	 * Generated.
+	 */
+	private static final long serialVersionUID = -4470911846093316227L;
+
+	private final long timestamp;
+	private final long elapsedSeconds;
+	private final float hitsPerSecond;
+	private final long errors;
+	private final int virtualUsers;
+
+	/**
+	 * Instantiates new live statistics.
+	 *
+	 * @param timestamp      the time the statistics were received
+	 * @param elapsedSeconds the elapsed time of the test in seconds
+	 * @param hitsPerSecond  the hits per second
+	 * @param errors         the number of errors
+	 * @param virtualUsers   the number of running virtual users
+	 */
+	public LiveStatistics(final long timestamp, final long elapsedSeconds, final float hitsPerSecond, final long errors,
+	                      final int virtualUsers) {
+		this.timestamp = timestamp;
+		this.elapsedSeconds = elapsedSeconds;
+		this.hitsPerSecond = hitsPerSecond;
+		this.errors = errors;
+		this.virtualUsers = virtualUsers;
+	}
+
+	/**
+	 * Gets timestamp.
+	 *
+	 * @return the time the statistics were received
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Gets elapsed seconds.
+	 *
+	 * @return the elapsed time of the test in seconds
+	 */
+	public long getElapsedSeconds() {
+		return elapsedSeconds;
+	}
+
+	/**
+	 * Gets hits per second.
+	 *
+	 * @return the hits per second
+	 */
+	public float getHitsPerSecond() {
+		return hitsPerSecond;
+	}
+
+	/**
+	 * Gets errors.
+	 *
+	 * @return the number of errors
+	 */
+	public long getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Gets virtual users.
+	 *
+	 * @return the number of running virtual users
+	 */
+	public int getVirtualUsers() {
+		return virtualUsers;
+	}
+
+	/**
+	 * Gets the elapsed time formatted as hh:mm:ss.
+	 *
+	 * @return the elapsed time or an empty string if unknown
+	 */
+	public String getElapsedTime() {
+		if (elapsedSeconds < 0) {
+			return "";
+		}
+		return String.format("%02d:%02d:%02d", elapsedSeconds / 3600, elapsedSeconds / 60 % 60, elapsedSeconds % 60);
+	}
+
+	@Override
+	public String toString() {
+		return "LiveStatistics{elapsed=" + getElapsedTime() + ", hitsPerSecond=" + hitsPerSecond + ", errors=" + errors
+				+ ", virtualUsers=" + virtualUsers + '}';
+	}
+}
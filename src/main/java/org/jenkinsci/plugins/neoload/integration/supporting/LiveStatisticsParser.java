@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the running statistics from the lines printed by NeoLoad during a test.
+ * <p>
+ * The statistics are read as "label: value" pairs, in any order, so that a line like
+ * "Elapsed time: 00:12:05 - Hits/s: 152.3 - Errors: 12 - VUs: 50" gives every statistic.
+ */
+public final class LiveStatisticsParser {
+
+	private static final Pattern ELAPSED = Pattern.compile("(?:elapsed(?:\\s+time)?|time)\\s*[:=]\\s*(\\d+):(\\d{2}):(\\d{2})",
+			Pattern.CASE_INSENSITIVE);
+	private static final Pattern HITS = Pattern.compile("hits?\\s*(?:/|per)\\s*s(?:ec(?:ond)?)?\\s*[:=]\\s*(\\d[\\d.,]*)",
+			Pattern.CASE_INSENSITIVE);
+	private static final Pattern ERRORS = Pattern.compile("\\berrors?\\s*[:=]\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+	private static final Pattern VIRTUAL_USERS = Pattern.compile("\\b(?:vus?|virtual\\s+users?|users)\\s*[:=]\\s*(\\d+)",
+			Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * A line is taken as statistics when at least this number of statistics are found, to ignore the other messages.
+	 */
+	private static final int MIN_STATISTICS = 2;
+
+	private LiveStatisticsParser() {
+	}
+
+	/**
+	 * Parse a line of the NeoLoad output.
+	 *
+	 * @param line      the line
+	 * @param timestamp the time the line was received
+	 * @return the statistics or null if the line doesn't contain statistics
+	 */
+	public static LiveStatistics parse(final String line, final long timestamp) {
+		if (line == null || line.indexOf(':') < 0 && line.indexOf('=') < 0) {
+			return null;
+		}
+		int found = 0;
+		long elapsedSeconds = -1;
+		float hitsPerSecond = Float.NaN;
+		long errors = -1;
+		int virtualUsers = -1;
+
+		Matcher matcher = ELAPSED.matcher(line);
+		if (matcher.find()) {
+			elapsedSeconds = Long.parseLong(matcher.group(1)) * 3600 + Long.parseLong(matcher.group(2)) * 60
+					+ Long.parseLong(matcher.group(3));
+			found++;
+		}
+		matcher = HITS.matcher(line);
+		if (matcher.find()) {
+			hitsPerSecond = parseDecimal(matcher.group(1));
+			if (!Float.isNaN(hitsPerSecond)) {
+				found++;
+			}
+		}
+		matcher = ERRORS.matcher(line);
+		if (matcher.find()) {
+			errors = Long.parseLong(matcher.group(1));
+			found++;
+		}
+		matcher = VIRTUAL_USERS.matcher(line);
+		if (matcher.find()) {
+			virtualUsers = Integer.parseInt(matcher.group(1));
+			found++;
+		}
+		if (found < MIN_STATISTICS) {
+			return null;
+		}
+		return new LiveStatistics(timestamp, elapsedSeconds, hitsPerSecond, errors, virtualUsers);
+	}
+
+	/**
+	 * Parse a decimal written with a dot or a comma as the decimal separator.
+	 */
+	private static float parseDecimal(final String value) {
+		String normalized = value;
+		if (normalized.endsWith(".") || normalized.endsWith(",")) {
+			normalized = normalized.substring(0, normalized.length() - 1);
+		}
+		if (normalized.indexOf('.') >= 0) {
+			normalized = normalized.replace(",", "");
+		} else {
+			normalized = normalized.replace(',', '.');
+		}
+		try {
+			return Float.parseFloat(normalized);
+		} catch (NumberFormatException e) {
+			return Float.NaN;
+		}
+	}
+}
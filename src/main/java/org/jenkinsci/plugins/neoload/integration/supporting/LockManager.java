@@ -26,16 +26,29 @@
  */
 package org.jenkinsci.plugins.neoload.integration.supporting;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import hudson.model.Job;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * The type Lock manager.
+ * The type Lock manager. The locks of the jobs are independent, taking or checking a lock never blocks.
  */
 public class LockManager {
-	private final Set<String> lockSet = new HashSet<>();
+	private final ConcurrentMap<String, Holder> locks = new ConcurrentHashMap<>();
+
+	private final AtomicLong acquisitions = new AtomicLong();
+
+	private final AtomicLong contentions = new AtomicLong();
+
+	private final AtomicLong totalHoldTime = new AtomicLong();
+
+	private final AtomicLong maxHoldTime = new AtomicLong();
 
 	/**
 	 * Instantiates a new Lock manager.
@@ -58,8 +71,17 @@ public class LockManager {
 	 *
 	 * @param project the project
 	 */
-	public synchronized void unlock(Job project) {
-		lockSet.remove(getKeyFromProject(project));
+	public void unlock(Job project) {
+		final Holder holder = locks.remove(getKeyFromProject(project));
+		if (holder != null) {
+			final long holdTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - holder.since);
+			totalHoldTime.addAndGet(holdTime);
+			long max = maxHoldTime.get();
+			while (holdTime > max && !maxHoldTime.compareAndSet(max, holdTime)) {
+				max = maxHoldTime.get();
+			}
+			holder.completion.set(null);
+		}
 	}
 
 	/**
@@ -68,8 +90,8 @@ public class LockManager {
 	 * @param project the project
 	 * @return the boolean
 	 */
-	public synchronized boolean isLocked(Job project) {
-		return lockSet.contains(getKeyFromProject(project));
+	public boolean isLocked(Job project) {
+		return locks.containsKey(getKeyFromProject(project));
 	}
 
 	/**
@@ -78,13 +100,68 @@ public class LockManager {
 	 * @param project the project
 	 * @return the boolean
 	 */
-	public synchronized boolean tryLock(Job project) {
-		final String key = getKeyFromProject(project);
-		if (lockSet.contains(key)) {
-			return false;
-		} else {
-			lockSet.add(key);
+	public boolean tryLock(Job project) {
+		if (locks.putIfAbsent(getKeyFromProject(project), new Holder()) == null) {
+			acquisitions.incrementAndGet();
 			return true;
 		}
+		contentions.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Gets completion.
+	 *
+	 * @param project the project
+	 * @return a future done when the current holder of the lock releases it, already done if the lock is free.
+	 */
+	public ListenableFuture<Void> getCompletion(Job project) {
+		final Holder holder = locks.get(getKeyFromProject(project));
+		return holder == null ? Futures.<Void>immediateFuture(null) : holder.completion;
+	}
+
+	/**
+	 * Gets acquisitions.
+	 *
+	 * @return the number of locks taken
+	 */
+	public long getAcquisitions() {
+		return acquisitions.get();
+	}
+
+	/**
+	 * Gets contentions.
+	 *
+	 * @return the number of locks refused because the job was already locked
+	 */
+	public long getContentions() {
+		return contentions.get();
+	}
+
+	/**
+	 * Gets average hold time.
+	 *
+	 * @return the average time in milliseconds a lock is held
+	 */
+	public long getAverageHoldTime() {
+		final long released = acquisitions.get() - locks.size();
+		return released <= 0 ? 0 : totalHoldTime.get() / released;
+	}
+
+	/**
+	 * Gets max hold time.
+	 *
+	 * @return the longest time in milliseconds a lock was held
+	 */
+	public long getMaxHoldTime() {
+		return maxHoldTime.get();
+	}
+
+	/**
+	 * A taken lock.
+	 */
+	private static final class Holder {
+		private final long since = System.nanoTime();
+		private final SettableFuture<Void> completion = SettableFuture.create();
 	}
 }
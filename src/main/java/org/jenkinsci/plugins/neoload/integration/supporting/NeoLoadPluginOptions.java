@@ -68,4 +68,11 @@ public interface NeoLoadPluginOptions   {
 	 */
 	boolean isScanAllBuilds();
 
+	/**
+	 * Is svg trends boolean.
+	 *
+	 * @return true if the trend charts are drawn as svg instead of png
+	 */
+	boolean isSvgTrends();
+
 }
\ No newline at end of file
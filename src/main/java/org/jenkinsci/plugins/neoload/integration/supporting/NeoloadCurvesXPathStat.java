@@ -26,29 +26,20 @@
  */
 package org.jenkinsci.plugins.neoload.integration.supporting;
 
-import org.jenkinsci.plugins.neoload.integration.ProjectSpecificAction;
-import org.w3c.dom.Document;
-
-import javax.xml.xpath.XPathExpressionException;
 import java.awt.*;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * The type Neoload curves x path stat.
  */
 public class NeoloadCurvesXPathStat {
-	private static final Logger LOGGER = Logger.getLogger(ProjectSpecificAction.class.getName());
-
 
 	private final String legend;
 	private final List<String> xPaths;
 	private final Color color;
-	private final Map<Integer, Float> buildToValue = new TreeMap<>();
 
 	/**
 	 * Instantiates a new Neoload curves x path stat.
@@ -65,26 +56,24 @@ public class NeoloadCurvesXPathStat {
 
 
 	/**
-	 * Add build.
+	 * Gets value.
 	 *
+	 * @param store       the store
 	 * @param buildNumber the build number
-	 * @param document    the document
+	 * @return the value of the first x path having a value for the build, {@link Float#NaN} if there is none.
 	 */
-	public void addBuild(final int buildNumber, final Document document) {
+	public float getValue(final NeoloadTrendStore store, final int buildNumber) {
 		for (String xPath : xPaths) {
-			try {
-				final Float data = PluginUtils.getCustom(xPath, document);
-				if (data != null) {
-					buildToValue.put(buildNumber, data);
-					break;
+			if (xPath != null) {
+				final float value = store.getValue(xPath, buildNumber);
+				if (!Float.isNaN(value)) {
+					return value;
 				}
-			} catch (XPathExpressionException e) {
-				LOGGER.log(Level.WARNING, "Exception occurs while parsing results", e);
 			}
 		}
+		return Float.NaN;
 	}
 
-
 	/**
 	 * Gets legend.
 	 *
@@ -115,18 +104,34 @@ public class NeoloadCurvesXPathStat {
 	/**
 	 * Gets build to value.
 	 *
-	 * @return the build to value
+	 * @param store the store
+	 * @return a copy of the values of the curve by build number
 	 */
-	public Map<Integer, Float> getBuildToValue() {
+	public SortedMap<Integer, Float> getBuildToValue(final NeoloadTrendStore store) {
+		final SortedMap<Integer, Float> buildToValue = new TreeMap<>();
+		for (int i = 0; i < store.size(); i++) {
+			final int buildNumber = store.getBuildNumber(i);
+			final float value = getValue(store, buildNumber);
+			if (!Float.isNaN(value)) {
+				buildToValue.put(buildNumber, value);
+			}
+		}
 		return buildToValue;
 	}
 
 	/**
 	 * Get builds number int.
 	 *
+	 * @param store the store
 	 * @return the int
 	 */
-	public int getBuildsNumber() {
-		return buildToValue.size();
+	public int getBuildsNumber(final NeoloadTrendStore store) {
+		int buildsNumber = 0;
+		for (int i = 0; i < store.size(); i++) {
+			if (!Float.isNaN(getValue(store, store.getBuildNumber(i)))) {
+				buildsNumber++;
+			}
+		}
+		return buildsNumber;
 	}
 }
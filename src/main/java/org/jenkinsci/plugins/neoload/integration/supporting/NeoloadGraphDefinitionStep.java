@@ -36,6 +36,10 @@ public interface NeoloadGraphDefinitionStep {
 
 	void setMaxTrends(int maxTrends);
 
+	boolean isSvgTrends();
+
+	void setSvgTrends(boolean svgTrends);
+
 	boolean isShowTrendAverageResponse();
 
 	void setShowTrendAverageResponse(boolean showTrendAverageResponse);
@@ -26,6 +26,7 @@
  */
 package org.jenkinsci.plugins.neoload.integration.supporting;
 
+import hudson.Util;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
@@ -40,16 +41,19 @@ import org.jfree.data.Range;
 import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.ui.Size2D;
-import org.w3c.dom.Document;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
 
 /**
@@ -72,6 +76,20 @@ public class NeoloadGraphXPathStat {
 	 */
 	private static final int LEGEND_HEIGHT = 20;
 
+	/**
+	 * The most builds drawn on a chart, 15 pixels each. The builds of longer histories are downsampled so that the
+	 * width of the chart and the size of its dataset stay bounded.
+	 */
+	static final int MAX_POINTS = 100;
+
+	/**
+	 * The margins of the plot of the svg charts, around the title, the axis labels and the tick labels.
+	 */
+	private static final int SVG_LEFT_MARGIN = 70;
+	private static final int SVG_RIGHT_MARGIN = 15;
+	private static final int SVG_TOP_MARGIN = 30;
+	private static final int SVG_BOTTOM_MARGIN = 45;
+
 
 	private final String title;
 	private final List<NeoloadCurvesXPathStat> curves;
@@ -212,33 +230,133 @@ public class NeoloadGraphXPathStat {
 	}
 
 	/**
-	 * Add build.
+	 * Gets the builds drawn on the chart.
 	 *
-	 * @param buildNumber the build number
-	 * @param document    the document
+	 * @param store the store
+	 * @return the builds having a value, downsampled to {@link #MAX_POINTS} builds
 	 */
-	public void addBuild(final int buildNumber, final Document document) {
-		for (NeoloadCurvesXPathStat neoloadCurvesXPathStat : curves) {
-			neoloadCurvesXPathStat.addBuild(buildNumber, document);
+	List<Integer> getPlottedBuilds(final NeoloadTrendStore store) {
+		return getPlottedBuilds(store, MAX_POINTS);
+	}
+
+	/**
+	 * Gets the builds drawn on the chart. Beyond the budget, the builds are selected with the largest triangle three
+	 * buckets algorithm: the first and the last builds are kept and each bucket of builds in between keeps the build
+	 * forming the largest triangle with the build kept before it and the average of the next bucket, so the peaks and
+	 * the drops stay visible. The curves of a graph share their builds, the areas of the curves are summed, each curve
+	 * scaled to its own range.
+	 *
+	 * @param store     the store
+	 * @param maxPoints the most builds drawn, at least 3
+	 * @return the builds having a value, downsampled to maxPoints builds
+	 */
+	List<Integer> getPlottedBuilds(final NeoloadTrendStore store, final int maxPoints) {
+		final List<Integer> builds = new ArrayList<>();
+		final List<float[]> rows = new ArrayList<>();
+		for (int i = 0; i < store.size(); i++) {
+			final int buildNumber = store.getBuildNumber(i);
+			final float[] row = new float[curves.size()];
+			boolean hasValue = false;
+			for (int c = 0; c < row.length; c++) {
+				row[c] = curves.get(c).getValue(store, buildNumber);
+				hasValue |= !Float.isNaN(row[c]);
+			}
+			if (hasValue) {
+				builds.add(buildNumber);
+				rows.add(row);
+			}
+		}
+		final int size = builds.size();
+		if (size <= maxPoints) {
+			return builds;
+		}
+
+		final float[] minimums = new float[curves.size()];
+		final float[] scales = new float[curves.size()];
+		for (int c = 0; c < minimums.length; c++) {
+			float min = Float.POSITIVE_INFINITY;
+			float max = Float.NEGATIVE_INFINITY;
+			for (float[] row : rows) {
+				if (!Float.isNaN(row[c])) {
+					min = Math.min(min, row[c]);
+					max = Math.max(max, row[c]);
+				}
+			}
+			minimums[c] = min;
+			scales[c] = max > min ? max - min : 1;
 		}
+
+		final List<Integer> plotted = new ArrayList<>(maxPoints);
+		plotted.add(builds.get(0));
+		final double bucketSize = (double) (size - 2) / (maxPoints - 2);
+		final double[] averages = new double[curves.size()];
+		int previous = 0;
+		for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+			// The average of the next bucket, the last build for the last bucket.
+			final int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+			final int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+			final double averageX = (nextStart + nextEnd - 1) / 2.0;
+			for (int c = 0; c < averages.length; c++) {
+				double sum = 0;
+				int count = 0;
+				for (int i = nextStart; i < nextEnd; i++) {
+					final float value = rows.get(i)[c];
+					if (!Float.isNaN(value)) {
+						sum += value;
+						count++;
+					}
+				}
+				averages[c] = count == 0 ? Double.NaN : (sum / count - minimums[c]) / scales[c];
+			}
+
+			final int start = (int) Math.floor(bucket * bucketSize) + 1;
+			final int end = nextStart;
+			int selected = start;
+			double largestArea = -1;
+			for (int i = start; i < end; i++) {
+				double area = 0;
+				for (int c = 0; c < averages.length; c++) {
+					final float previousValue = rows.get(previous)[c];
+					final float value = rows.get(i)[c];
+					if (Float.isNaN(previousValue) || Float.isNaN(value) || Double.isNaN(averages[c])) {
+						continue;
+					}
+					final double previousY = (previousValue - minimums[c]) / scales[c];
+					final double y = (value - minimums[c]) / scales[c];
+					area += Math.abs((previous - averageX) * (y - previousY) - (previous - i) * (averages[c] - previousY));
+				}
+				if (area > largestArea) {
+					largestArea = area;
+					selected = i;
+				}
+			}
+			plotted.add(builds.get(selected));
+			previous = selected;
+		}
+		plotted.add(builds.get(size - 1));
+		return plotted;
 	}
 
-	private CategoryDataset getDataSet() {
+	private CategoryDataset getDataSet(final NeoloadTrendStore store) {
 		final DefaultCategoryDataset ds = new DefaultCategoryDataset();
+		final List<Integer> plottedBuilds = getPlottedBuilds(store);
 		for (NeoloadCurvesXPathStat curve : curves) {
-			for (Map.Entry<Integer, Float> entry : curve.getBuildToValue().entrySet()) {
-				ds.addValue(entry.getValue(), curve.getLegend(), "#" + entry.getKey());
+			for (Integer buildNumber : plottedBuilds) {
+				final float value = curve.getValue(store, buildNumber);
+				if (!Float.isNaN(value)) {
+					ds.addValue(value, curve.getLegend(), "#" + buildNumber);
+				}
 			}
 		}
 		return ds;
 	}
 
-	private JFreeChart createChart() {
+	private JFreeChart createChart(final NeoloadTrendStore store) {
 
 		final JFreeChart chart = ChartFactory.createLineChart(null, // chart title
 				null, // categoryAxisLabel
 				yLabel, // range axis label
-				getDataSet(), // data
+				getDataSet(store), // data
 				PlotOrientation.VERTICAL, // orientation
 				legend, // include legend
 				true, // tooltips
@@ -283,12 +401,13 @@ public class NeoloadGraphXPathStat {
 	/**
 	 * Number of builds int.
 	 *
+	 * @param store the store
 	 * @return the int
 	 */
-	int numberOfBuilds() {
+	int numberOfBuilds(final NeoloadTrendStore store) {
 		int nbOfBuild = 0;
 		for (NeoloadCurvesXPathStat curve : curves) {
-			nbOfBuild = Math.max(curve.getBuildsNumber(), nbOfBuild);
+			nbOfBuild = Math.max(curve.getBuildsNumber(store), nbOfBuild);
 		}
 		return nbOfBuild;
 	}
@@ -296,24 +415,191 @@ public class NeoloadGraphXPathStat {
 	/**
 	 * Compute width int.
 	 *
+	 * @param store the store
 	 * @return the int
 	 */
-	int computeWidth() {
-		return Math.max(IMAGE_WIDTH, numberOfBuilds() * 15);
+	int computeWidth(final NeoloadTrendStore store) {
+		return Math.max(IMAGE_WIDTH, Math.min(numberOfBuilds(store), MAX_POINTS) * 15);
 	}
 
 	/**
 	 * Write png.
 	 *
-	 * @param file the file
+	 * @param file  the file
+	 * @param store the values of the curves
 	 * @throws IOException the io exception
 	 */
-	public void writePng(final File file) throws IOException {
-		final int width = computeWidth();
-		final JFreeChart chart = createChart();
+	public void writePng(final File file, final NeoloadTrendStore store) throws IOException {
+		final int width = computeWidth(store);
+		final JFreeChart chart = createChart(store);
 		final int height = computeHeight(chart, width);
 		ChartUtilities.saveChartAsPNG(file, chart, width, height);
+	}
+
+	/**
+	 * Write the graph as svg. The chart has the size and the layout of the png chart, drawn with a path per curve, so
+	 * its size only grows with the text of the values.
+	 *
+	 * @param writer the writer
+	 * @param store  the values of the curves
+	 * @throws IOException the io exception
+	 */
+	public void writeSvg(final Writer writer, final NeoloadTrendStore store) throws IOException {
+		final List<Integer> buildNumbers = getPlottedBuilds(store);
+		float min = 0;
+		float max = Float.NEGATIVE_INFINITY;
+		for (Integer buildNumber : buildNumbers) {
+			for (NeoloadCurvesXPathStat curve : curves) {
+				final float value = curve.getValue(store, buildNumber);
+				if (!Float.isNaN(value)) {
+					min = Math.min(min, value);
+					max = Math.max(max, value);
+				}
+			}
+		}
+		if (max <= min) {
+			max = min + 1;
+		}
+		final double tickUnit = computeTickUnit(max - min);
+		final double lower = Math.floor(min / tickUnit) * tickUnit;
+		final double upper = Math.ceil(max / tickUnit) * tickUnit;
+
+		final int width = Math.max(IMAGE_WIDTH, buildNumbers.size() * 15);
+		final List<Integer> legendRows = legend ? layoutLegend(width) : Collections.<Integer>emptyList();
+		final int legendHeight = legendRows.isEmpty() ? 0 : (legendRows.get(legendRows.size() - 1) + 1) * LEGEND_HEIGHT;
+		final int height = IMAGE_HEIGHT + legendHeight;
+		final double left = SVG_LEFT_MARGIN;
+		final double right = width - SVG_RIGHT_MARGIN;
+		final double top = SVG_TOP_MARGIN;
+		final double bottom = IMAGE_HEIGHT - SVG_BOTTOM_MARGIN;
+
+		writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+				+ "\" viewBox=\"0 0 " + width + " " + height + "\" font-family=\"Helvetica, Arial, sans-serif\">\n");
+		writer.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+		if (title != null && !title.trim().isEmpty()) {
+			writer.write("<text x=\"" + width / 2 + "\" y=\"20\" text-anchor=\"middle\" font-size=\"16\" font-weight=\"bold\">"
+					+ Util.xmlEscape(title) + "</text>\n");
+		}
+		if (yLabel != null) {
+			writer.write("<text transform=\"translate(14," + format((top + bottom) / 2) + ") rotate(-90)\" text-anchor=\"middle\" font-size=\"12\">"
+					+ Util.xmlEscape(yLabel) + "</text>\n");
+		}
 
+		// The grid and the range axis.
+		final DecimalFormat tickFormat = new DecimalFormat(tickUnit >= 1 ? "#,##0" : "#,##0.###", DecimalFormatSymbols.getInstance(Locale.ROOT));
+		writer.write("<g font-size=\"10\" fill=\"#444444\" text-anchor=\"end\">\n");
+		final StringBuilder grid = new StringBuilder();
+		for (double tick = lower; tick <= upper + tickUnit / 2; tick += tickUnit) {
+			final double y = bottom - (tick - lower) / (upper - lower) * (bottom - top);
+			grid.append('M').append(format(left)).append(' ').append(format(y)).append('H').append(format(right));
+			writer.write("<text x=\"" + format(left - 4) + "\" y=\"" + format(y + 3) + "\">" + tickFormat.format(tick) + "</text>\n");
+		}
+		writer.write("</g>\n");
+		writer.write("<path d=\"" + grid + "\" stroke=\"#dddddd\" fill=\"none\"/>\n");
+		writer.write("<rect x=\"" + format(left) + "\" y=\"" + format(top) + "\" width=\"" + format(right - left) + "\" height=\""
+				+ format(bottom - top) + "\" stroke=\"#888888\" fill=\"none\"/>\n");
+
+		// The builds, as the categories of the png chart.
+		final double step = buildNumbers.isEmpty() ? 0 : (right - left) / buildNumbers.size();
+		writer.write("<g font-size=\"10\" fill=\"#444444\" text-anchor=\"end\">\n");
+		for (int i = 0; i < buildNumbers.size(); i++) {
+			writer.write("<text transform=\"translate(" + format(left + (i + 0.5) * step + 3) + "," + format(bottom + 4)
+					+ ") rotate(-90)\">#" + buildNumbers.get(i) + "</text>\n");
+		}
+		writer.write("</g>\n");
+
+		for (NeoloadCurvesXPathStat curve : curves) {
+			final StringBuilder path = new StringBuilder();
+			int pointsInLine = 0;
+			for (int i = 0; i < buildNumbers.size(); i++) {
+				final float value = curve.getValue(store, buildNumbers.get(i));
+				if (Float.isNaN(value)) {
+					if (pointsInLine == 1) {
+						path.append("h0");
+					}
+					pointsInLine = 0;
+					continue;
+				}
+				final double x = left + (i + 0.5) * step;
+				final double y = bottom - (value - lower) / (upper - lower) * (bottom - top);
+				path.append(pointsInLine == 0 ? 'M' : 'L').append(format(x)).append(' ').append(format(y));
+				pointsInLine++;
+			}
+			if (pointsInLine == 1) {
+				// A single value is drawn as a dot.
+				path.append("h0");
+			}
+			if (path.length() > 0) {
+				writer.write("<path d=\"" + path + "\" fill=\"none\" stroke=\"" + toHex(curve.getColor())
+						+ "\" stroke-width=\"1.5\" stroke-linecap=\"round\" stroke-linejoin=\"round\"/>\n");
+			}
+		}
+
+		if (!legendRows.isEmpty()) {
+			writer.write("<g font-size=\"11\">\n");
+			int x = 0;
+			int row = -1;
+			for (int i = 0; i < curves.size(); i++) {
+				if (legendRows.get(i) != row) {
+					row = legendRows.get(i);
+					x = SVG_LEFT_MARGIN;
+				}
+				final NeoloadCurvesXPathStat curve = curves.get(i);
+				final int y = IMAGE_HEIGHT + row * LEGEND_HEIGHT + LEGEND_HEIGHT / 2;
+				writer.write("<path d=\"M" + x + " " + y + "h14\" stroke=\"" + toHex(curve.getColor()) + "\" stroke-width=\"2\"/>"
+						+ "<text x=\"" + (x + 18) + "\" y=\"" + (y + 4) + "\">" + Util.xmlEscape(curve.getLegend()) + "</text>\n");
+				x += legendEntryWidth(curve);
+			}
+			writer.write("</g>\n");
+		}
+		writer.write("</svg>\n");
+		writer.flush();
+	}
+
+	/**
+	 * Gets the row of the legend entry of each curve, the entries flow from left to right.
+	 */
+	private List<Integer> layoutLegend(final int width) {
+		final List<Integer> rows = new ArrayList<>();
+		int x = SVG_LEFT_MARGIN;
+		int row = 0;
+		for (NeoloadCurvesXPathStat curve : curves) {
+			final int entryWidth = legendEntryWidth(curve);
+			if (x > SVG_LEFT_MARGIN && x + entryWidth > width - SVG_RIGHT_MARGIN) {
+				row++;
+				x = SVG_LEFT_MARGIN;
+			}
+			rows.add(row);
+			x += entryWidth;
+		}
+		return rows;
+	}
+
+	private static int legendEntryWidth(final NeoloadCurvesXPathStat curve) {
+		// An estimate of the width of the text, the browser measures the text.
+		return 18 + String.valueOf(curve.getLegend()).length() * 7 + 12;
+	}
+
+	/**
+	 * Gets a round tick unit giving about five ticks on the range axis.
+	 */
+	private static double computeTickUnit(final double range) {
+		final double rawUnit = range / 5;
+		final double magnitude = Math.pow(10, Math.floor(Math.log10(rawUnit)));
+		for (double factor : new double[]{1, 2.5, 5}) {
+			if (factor * magnitude >= rawUnit) {
+				return factor * magnitude;
+			}
+		}
+		return 10 * magnitude;
+	}
+
+	private static String format(final double coordinate) {
+		return String.format(Locale.ROOT, "%.1f", coordinate);
+	}
+
+	private static String toHex(final Color color) {
+		return String.format("#%06x", color.getRGB() & 0xFFFFFF);
 	}
 
 	private int computeHeight(final JFreeChart chart, final int width) {
@@ -325,19 +611,25 @@ public class NeoloadGraphXPathStat {
 			return 0;
 		}
 
-		BufferedImage image = new BufferedImage(imageWidth, IMAGE_HEIGHT, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g2 = image.createGraphics();
-		RectangleConstraint constraint = new RectangleConstraint(
-				imageWidth, new Range(0.0, imageWidth), LengthConstraintType.RANGE,
-				0.0, null, LengthConstraintType.NONE
-		);
-		int height = 0;
-		for (int i = 0; i < chart.getSubtitleCount(); i++) {
-			final Title subtitle = chart.getSubtitle(i);
-			final Size2D arrange = subtitle.arrange(g2, constraint);
-			height += arrange.getHeight();
+		// Arranging the legend only needs the font metrics, measure on a scratch pixel rather than on a second image
+		// of the size of the chart, the chart itself is drawn once when it is written.
+		final BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g2 = scratch.createGraphics();
+		try {
+			RectangleConstraint constraint = new RectangleConstraint(
+					imageWidth, new Range(0.0, imageWidth), LengthConstraintType.RANGE,
+					0.0, null, LengthConstraintType.NONE
+			);
+			int height = 0;
+			for (int i = 0; i < chart.getSubtitleCount(); i++) {
+				final Title subtitle = chart.getSubtitle(i);
+				final Size2D arrange = subtitle.arrange(g2, constraint);
+				height += arrange.getHeight();
+			}
+			return height;
+		} finally {
+			g2.dispose();
 		}
-		return height;
 	}
 
 
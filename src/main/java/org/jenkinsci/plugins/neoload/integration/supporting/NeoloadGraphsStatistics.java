@@ -26,24 +26,46 @@
  */
 package org.jenkinsci.plugins.neoload.integration.supporting;
 
+import com.google.gson.stream.JsonWriter;
+import hudson.Util;
 import hudson.model.AbstractBuild;
 import hudson.model.Run;
+import org.jenkinsci.plugins.neoload.integration.NeoResultsAction;
 import org.w3c.dom.Document;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * The type Neoload graphs statistics.
  */
 public class NeoloadGraphsStatistics {
 	private static final Logger LOGGER = Logger.getLogger(NeoloadGraphsStatistics.class.getName());
+	private static final Pattern CHART_NAME_PATTERN = Pattern.compile("stat(\\d{2,})\\.(?:png|svg)");
 	private static final List<Color> availableColors = Arrays.asList(
 			Color.BLUE,
 			Color.GREEN,
@@ -57,7 +79,24 @@ public class NeoloadGraphsStatistics {
 			Color.darkGray,
 			Color.lightGray
 	);
+	/**
+	 * The average response time of the pages.
+	 */
+	public static final String AVG_RESPONSE_TIME_XPATH = "/report/summary/all-summary/statistic-item[@type='httppage']/@avg";
+	/**
+	 * The error rate.
+	 */
+	public static final String ERROR_RATE_XPATH = "/report/summary/statistics/statistic[@name='error_percentile']/@value";
 	private List<NeoloadGraphXPathStat> neoloadGraphXPathStats = new ArrayList<>();
+	private final int maxTrends;
+	/**
+	 * Draw the charts as svg instead of png.
+	 */
+	private final boolean svg;
+	/**
+	 * The values of the graphs.
+	 */
+	private NeoloadTrendStore store;
 
 	/**
 	 * Instantiates a new Neoload graphs statistics.
@@ -65,12 +104,24 @@ public class NeoloadGraphsStatistics {
 	 * @param neoLoadPluginOptions the neo load plugin options
 	 */
 	public NeoloadGraphsStatistics(NeoLoadPluginOptions neoLoadPluginOptions) {
+		this(neoLoadPluginOptions, Collections.<String>emptyList());
+	}
+
+	/**
+	 * Instantiates a new Neoload graphs statistics where every graph shows the curves of each series side by side.
+	 *
+	 * @param neoLoadPluginOptions the neo load plugin options
+	 * @param series               the names of the series, empty for a single series
+	 */
+	public NeoloadGraphsStatistics(NeoLoadPluginOptions neoLoadPluginOptions, final List<String> series) {
+		maxTrends = neoLoadPluginOptions.getMaxTrends();
+		svg = neoLoadPluginOptions.isSvgTrends();
 		if (neoLoadPluginOptions.isShowTrendAverageResponse()) {
 
 			final NeoloadCurvesXPathStat stat = new NeoloadCurvesXPathStat(
 					"Time",
 					new Color(237, 184, 0),
-					"/report/summary/all-summary/statistic-item[@type='httppage']/@avg"
+					AVG_RESPONSE_TIME_XPATH
 			);
 			neoloadGraphXPathStats.add(
 					new NeoloadGraphXPathStat("Avg. Resp. Time (pages)", "Avg Resp Time (secs)", stat)
@@ -80,7 +131,7 @@ public class NeoloadGraphsStatistics {
 			final NeoloadCurvesXPathStat stat = new NeoloadCurvesXPathStat(
 					"Time",
 					new Color(200, 0, 0),
-					"/report/summary/statistics/statistic[@name='error_percentile']/@value"
+					ERROR_RATE_XPATH
 			);
 			neoloadGraphXPathStats.add(
 					new NeoloadGraphXPathStat("Error Rate", "Error Rate %", stat)
@@ -93,6 +144,42 @@ public class NeoloadGraphsStatistics {
 				neoloadGraphXPathStats.add(convertInfo(graphOptionsInfo));
 			}
 		}
+		if (!series.isEmpty()) {
+			neoloadGraphXPathStats = splitBySeries(neoloadGraphXPathStats, series);
+		}
+		store = new NeoloadTrendStore(getSignature());
+	}
+
+	private static List<NeoloadGraphXPathStat> splitBySeries(final List<NeoloadGraphXPathStat> stats, final List<String> series) {
+		final List<NeoloadGraphXPathStat> splitStats = new ArrayList<>();
+		for (NeoloadGraphXPathStat stat : stats) {
+			final List<NeoloadCurvesXPathStat> curves = new ArrayList<>();
+			int curveCount = 0;
+			for (String name : series) {
+				for (NeoloadCurvesXPathStat curve : stat.getCurves()) {
+					final String[] xPaths = new String[curve.getxPaths().size()];
+					for (int i = 0; i < xPaths.length; i++) {
+						final String xPath = curve.getxPaths().get(i);
+						xPaths[i] = xPath == null ? null : getSeriesXPath(name, xPath);
+					}
+					final String legend = stat.getCurves().size() == 1 ? name : name + ": " + curve.getLegend();
+					curves.add(new NeoloadCurvesXPathStat(legend, colorFromIndex(curveCount++), xPaths));
+				}
+			}
+			splitStats.add(new NeoloadGraphXPathStat(stat.getTitle(), stat.getyLabel(), curves));
+		}
+		return splitStats;
+	}
+
+	/**
+	 * Gets the x path of a series, evaluated on the statistics stored for the series in the build directory.
+	 *
+	 * @param series the name of the series
+	 * @param xPath  the x path in the report
+	 * @return the x path of the series
+	 */
+	static String getSeriesXPath(final String series, final String xPath) {
+		return "{" + series + "}" + xPath;
 	}
 
 	private static Color colorFromIndex(int index) {
@@ -133,23 +220,67 @@ public class NeoloadGraphsStatistics {
 	public void addReport(final File xmlFilePath, final int buildNumber) {
 		if (xmlFilePath != null) {
 			try {
-				final Document document = XMLUtilities.readXmlFile(xmlFilePath.getAbsolutePath());
-				for (NeoloadGraphXPathStat neoloadGraphXPathStat : neoloadGraphXPathStats) {
-					neoloadGraphXPathStat.addBuild(buildNumber, document);
-				}
+				addValues(buildNumber, extractValues(xmlFilePath, getXPaths()));
 			} catch (Exception e) {
 				LOGGER.log(Level.WARNING, "Exception during open file " + xmlFilePath.getAbsolutePath(), e);
 			}
 		}
 	}
 
+	/**
+	 * Extract the values of the x paths from a report. The report is streamed, it is only loaded in a DOM when a custom
+	 * x path can't be evaluated while streaming.
+	 *
+	 * @param xmlFilePath the xml file path
+	 * @param xPaths      the x paths
+	 * @return the value of each x path
+	 * @throws Exception the exception
+	 */
+	static Map<String, Float> extractValues(final File xmlFilePath, final Set<String> xPaths) throws Exception {
+		final Map<String, Float> values = new HashMap<>(NeoloadReportExtractor.extract(xmlFilePath, xPaths));
+		Document document = null;
+		for (String xPath : xPaths) {
+			if (!values.containsKey(xPath)) {
+				if (document == null) {
+					document = XMLUtilities.readXmlFile(xmlFilePath.getAbsolutePath());
+				}
+				values.put(xPath, PluginUtils.getCustom(xPath, document));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Gets the x paths of every curve.
+	 *
+	 * @return the x paths
+	 */
+	Set<String> getXPaths() {
+		final Set<String> xPaths = new LinkedHashSet<>();
+		for (NeoloadGraphXPathStat neoloadGraphXPathStat : neoloadGraphXPathStats) {
+			for (NeoloadCurvesXPathStat curve : neoloadGraphXPathStat.getCurves()) {
+				for (String xPath : curve.getxPaths()) {
+					if (xPath != null) {
+						xPaths.add(xPath);
+					}
+				}
+			}
+		}
+		return xPaths;
+	}
+
 	/**
 	 * Add build.
 	 *
 	 * @param build the build
 	 */
 	public void addBuild(final AbstractBuild<?, ?> build) {
-		addReport(getReportArtifactXML(build), build.getNumber());
+		addBuild(build, new ReportLocator() {
+			@Override
+			public File locate() {
+				return getReportArtifactXML(build);
+			}
+		});
 	}
 
 	/**
@@ -158,30 +289,552 @@ public class NeoloadGraphsStatistics {
 	 * @param build the build
 	 */
 	public void addBuild(final Run<?, ?> build) {
-		addReport(getReportArtifactXML(build), build.getNumber());
+		addBuild(build, new ReportLocator() {
+			@Override
+			public File locate() {
+				return getReportArtifactXML(build);
+			}
+		});
+	}
+
+	/**
+	 * Add builds. Their reports are read in parallel, the values are then added by ascending build number.
+	 *
+	 * @param builds the builds
+	 */
+	public void addBuilds(final Collection<? extends AbstractBuild<?, ?>> builds) {
+		final Set<String> xPaths = getXPaths();
+		final List<ReadValues> tasks = new ArrayList<>();
+		for (final AbstractBuild<?, ?> build : builds) {
+			tasks.add(new ReadValues(build, xPaths, new ReportLocator() {
+				@Override
+				public File locate() {
+					return getReportArtifactXML(build);
+				}
+			}));
+		}
+		addBuilds(tasks);
+	}
+
+	/**
+	 * Add builds. Their reports are read in parallel, the values are then added by ascending build number.
+	 *
+	 * @param builds the builds
+	 */
+	public void addRuns(final Collection<? extends Run<?, ?>> builds) {
+		final Set<String> xPaths = getXPaths();
+		final List<ReadValues> tasks = new ArrayList<>();
+		for (final Run<?, ?> build : builds) {
+			tasks.add(new ReadValues(build, xPaths, new ReportLocator() {
+				@Override
+				public File locate() {
+					return getReportArtifactXML(build);
+				}
+			}));
+		}
+		addBuilds(tasks);
+	}
+
+	private void addBuilds(final List<ReadValues> tasks) {
+		final List<Map<String, Float>> results;
+		try {
+			results = ReportReaderPool.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.log(Level.WARNING, "Interrupted while reading the NeoLoad reports", e);
+			return;
+		} catch (ExecutionException e) {
+			LOGGER.log(Level.WARNING, "Exception occurs while reading the NeoLoad reports", e);
+			return;
+		}
+		final SortedMap<Integer, Map<String, Float>> valuesByBuild = new TreeMap<>();
+		for (int i = 0; i < tasks.size(); i++) {
+			final Map<String, Float> values = results.get(i);
+			valuesByBuild.put(tasks.get(i).build.getNumber(), values == null ? Collections.<String, Float>emptyMap() : values);
+		}
+		for (Map.Entry<Integer, Map<String, Float>> entry : valuesByBuild.entrySet()) {
+			addValues(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Reads the values of a build in a thread of the {@link ReportReaderPool}.
+	 */
+	private static final class ReadValues implements Callable<Map<String, Float>> {
+		private final Run<?, ?> build;
+		private final Set<String> xPaths;
+		private final ReportLocator reportLocator;
+
+		private ReadValues(final Run<?, ?> build, final Set<String> xPaths, final ReportLocator reportLocator) {
+			this.build = build;
+			this.xPaths = xPaths;
+			this.reportLocator = reportLocator;
+		}
+
+		@Override
+		public Map<String, Float> call() {
+			return getAllValues(build, xPaths, reportLocator);
+		}
+	}
+
+	private void addBuild(final Run<?, ?> build, final ReportLocator reportLocator) {
+		final Map<String, Float> values = getAllValues(build, getXPaths(), reportLocator);
+		addValues(build.getNumber(), values == null ? Collections.<String, Float>emptyMap() : values);
+	}
+
+	/**
+	 * Gets the values of the x paths for a build, the x paths of a series are read from the statistics stored for the
+	 * series.
+	 *
+	 * @param build         the build
+	 * @param xPaths        the x paths
+	 * @param reportLocator finds the archived report
+	 * @return the value of each x path found or null if the build has no report
+	 */
+	static Map<String, Float> getAllValues(final Run<?, ?> build, final Set<String> xPaths, final ReportLocator reportLocator) {
+		final Set<String> reportXPaths = new LinkedHashSet<>();
+		final Map<String, Set<String>> seriesXPaths = new LinkedHashMap<>();
+		for (String xPath : xPaths) {
+			final int end = xPath.startsWith("{") ? xPath.indexOf('}') : -1;
+			if (end < 0) {
+				reportXPaths.add(xPath);
+				continue;
+			}
+			final String series = xPath.substring(1, end);
+			Set<String> paths = seriesXPaths.get(series);
+			if (paths == null) {
+				paths = new LinkedHashSet<>();
+				seriesXPaths.put(series, paths);
+			}
+			paths.add(xPath.substring(end + 1));
+		}
+		if (seriesXPaths.isEmpty()) {
+			return getValues(build, reportXPaths, reportLocator);
+		}
+
+		final Map<String, Float> values = new HashMap<>();
+		if (!reportXPaths.isEmpty()) {
+			final Map<String, Float> reportValues = getValues(build, reportXPaths, reportLocator);
+			if (reportValues != null) {
+				values.putAll(reportValues);
+			}
+		}
+		for (Map.Entry<String, Set<String>> entry : seriesXPaths.entrySet()) {
+			final ReportMetrics metrics = ReportMetrics.read(new File(build.getRootDir(), ReportMetrics.getSeriesFileName(entry.getKey())));
+			if (metrics != null) {
+				for (Map.Entry<String, Float> value : metrics.extract(entry.getValue()).entrySet()) {
+					values.put(getSeriesXPath(entry.getKey(), value.getKey()), value.getValue());
+				}
+			}
+		}
+		return values;
+	}
+
+	private void addValues(final int buildNumber, final Map<String, Float> values) {
+		if (!store.append(buildNumber, values)) {
+			LOGGER.log(Level.FINE, "Build " + buildNumber + " is older than the last build of the trends, it is ignored");
+		}
+	}
+
+	/**
+	 * Gets the average response time and the error rate of a build, the statistics of the report are stored in the
+	 * build directory for the trends.
+	 *
+	 * @param build     the build
+	 * @param xmlReport the xml report of the build
+	 * @return the values of {@link #AVG_RESPONSE_TIME_XPATH} and {@link #ERROR_RATE_XPATH}, null if the report can't be read
+	 */
+	public static Map<String, Float> getSummaryValues(final Run<?, ?> build, final File xmlReport) {
+		final Set<String> xPaths = new LinkedHashSet<>(Arrays.asList(AVG_RESPONSE_TIME_XPATH, ERROR_RATE_XPATH));
+		return getValues(build, xPaths, new ReportLocator() {
+			@Override
+			public File locate() {
+				return xmlReport;
+			}
+		});
+	}
+
+	/**
+	 * Gets the values of the x paths for a build. The statistics are read from the file stored in the build directory,
+	 * the report is only parsed the first time, or when a custom x path can't be answered from the stored statistics.
+	 *
+	 * @param build         the build
+	 * @param xPaths        the x paths
+	 * @param reportLocator finds the archived report
+	 * @return the value of each x path or null if the build has no report
+	 */
+	static Map<String, Float> getValues(final Run<?, ?> build, final Set<String> xPaths, final ReportLocator reportLocator) {
+		File report = null;
+		try {
+			final File metricsFile = new File(build.getRootDir(), ReportMetrics.FILE_NAME);
+			ReportMetrics metrics = ReportMetrics.read(metricsFile);
+			if (metrics == null) {
+				report = reportLocator.locate();
+				if (report == null) {
+					return null;
+				}
+				metrics = NeoloadReportExtractor.collectMetrics(report);
+				try {
+					metrics.write(metricsFile);
+				} catch (IOException e) {
+					LOGGER.log(Level.WARNING, "Unable to store the NeoLoad statistics of " + build, e);
+				}
+			}
+			final Map<String, Float> values = new HashMap<>(metrics.extract(xPaths));
+			if (!values.keySet().containsAll(xPaths)) {
+				if (report == null) {
+					report = reportLocator.locate();
+				}
+				if (report != null) {
+					final Set<String> remaining = new LinkedHashSet<>(xPaths);
+					remaining.removeAll(values.keySet());
+					values.putAll(extractValues(report, remaining));
+				}
+			}
+			return values;
+		} catch (Exception e) {
+			LOGGER.log(Level.WARNING, "Exception during open file " + (report == null ? build.toString() : report.getAbsolutePath()), e);
+			return null;
+		}
 	}
 
 	private File getReportArtifactXML(final AbstractBuild<?, ?> build) {
+		final NeoResultsAction neoResultsAction = PluginUtils.getNeoResultAction(build);
+		if (neoResultsAction != null && neoResultsAction.isReportResolved()) {
+			return neoResultsAction.getXmlReportFile();
+		}
 		final Run.Artifact artifact = PluginUtils.findArtifact(PluginUtils.getXMLReportPaths(build), build);
 		return artifact == null ? null : artifact.getFile();
 	}
 
 	private File getReportArtifactXML(final Run<?, ?> build) {
+		final NeoResultsAction neoResultsAction = PluginUtils.getNeoResultAction(build);
+		if (neoResultsAction != null && neoResultsAction.isReportResolved()) {
+			return neoResultsAction.getXmlReportFile();
+		}
 		final Run.Artifact artifact = PluginUtils.findArtifact(PluginUtils.getXMLReportPaths(build), build);
 		return artifact == null ? null : artifact.getFile();
 	}
 
 	/**
-	 * Write png.
+	 * Finds the archived report of a build, only called when the report has to be parsed.
+	 */
+	interface ReportLocator {
+		/**
+		 * Locate file.
+		 *
+		 * @return the report or null if the build has no report
+		 */
+		File locate();
+	}
+
+	/**
+	 * Gets signature.
 	 *
-	 * @param path the path
-	 * @throws IOException the io exception
+	 * @return identifies the graphs definition, stored values can't be reused once it changes.
 	 */
-	public void writePng(File path) throws IOException {
-		int i = 0;
+	String getSignature() {
+		final StringBuilder sb = new StringBuilder().append(maxTrends);
 		for (NeoloadGraphXPathStat neoloadGraphXPathStat : neoloadGraphXPathStats) {
-			neoloadGraphXPathStat.writePng(new File(path, "stat" + String.format("%02d", (i++)) + ".png"));
+			appendDefinition(sb, neoloadGraphXPathStat);
 		}
+		return Util.getDigestOf(sb.toString());
+	}
+
+	/**
+	 * Gets options signature.
+	 *
+	 * @return identifies the options drawing the graphs: their definition and the format of the charts
+	 */
+	String getOptionsSignature() {
+		return getSignature() + (svg ? "-svg" : "-png");
+	}
+
+	private static void appendDefinition(final StringBuilder sb, final NeoloadGraphXPathStat neoloadGraphXPathStat) {
+		sb.append('\n').append(neoloadGraphXPathStat.getTitle()).append('\t').append(neoloadGraphXPathStat.getyLabel());
+		for (NeoloadCurvesXPathStat curve : neoloadGraphXPathStat.getCurves()) {
+			sb.append('\t').append(curve.getLegend())
+					.append('\t').append(curve.getColor().getRGB())
+					.append('\t').append(curve.getxPaths());
+		}
+	}
+
+	/**
+	 * Gets the number of charts.
+	 *
+	 * @return the number of graphs
+	 */
+	public int getChartCount() {
+		return neoloadGraphXPathStats.size();
+	}
+
+	/**
+	 * Is svg boolean.
+	 *
+	 * @return true if the charts are drawn as svg instead of png
+	 */
+	public boolean isSvg() {
+		return svg;
+	}
+
+	/**
+	 * Gets the name of a chart in the configured format.
+	 *
+	 * @param index the index of the graph
+	 * @return the name of the chart
+	 */
+	public String getChartName(final int index) {
+		return String.format("stat%02d.%s", index, svg ? "svg" : "png");
+	}
+
+	/**
+	 * Gets chart key.
+	 *
+	 * @param index the index of the graph
+	 * @return identifies the picture of the graph: its definition and the builds it shows
+	 */
+	public String getChartKey(final int index) {
+		final StringBuilder sb = new StringBuilder().append(maxTrends);
+		appendDefinition(sb, neoloadGraphXPathStats.get(index));
+		sb.append('\n').append(store.size());
+		if (store.size() > 0) {
+			sb.append('\t').append(store.getBuildNumber(0)).append('\t').append(store.getLastBuildNumber());
+		}
+		return Util.getDigestOf(sb.toString());
+	}
+
+	/**
+	 * Gets the index of a chart from the name of its picture.
+	 *
+	 * @param name the name of the picture
+	 * @return the index of the graph, -1 if the name isn't the name of a chart
+	 */
+	public static int getChartIndex(final String name) {
+		final Matcher matcher = CHART_NAME_PATTERN.matcher(name);
+		return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+	}
+
+	/**
+	 * Gets the picture of a chart, it is rendered the first time it is requested and then kept under its key until a
+	 * build is added to the graph or its definition changes.
+	 *
+	 * @param chartsFolder the folder of the rendered charts
+	 * @param index        the index of the graph
+	 * @return the picture
+	 * @throws IOException the io exception
+	 */
+	public File getChart(final File chartsFolder, final int index) throws IOException {
+		final File chart = getChartFile(chartsFolder, index);
+		if (chart.isFile()) {
+			return chart;
+		}
+		return render(Collections.singletonList(new RenderChart(chartsFolder, index))).get(0);
+	}
+
+	/**
+	 * Write a chart as svg. The svg is small and quick to write, it is written for each request rather than kept.
+	 *
+	 * @param writer the writer
+	 * @param index  the index of the graph
+	 * @throws IOException the io exception
+	 */
+	public void writeSvg(final Writer writer, final int index) throws IOException {
+		neoloadGraphXPathStats.get(index).writeSvg(writer, store);
+	}
+
+	/**
+	 * Run rendering tasks on the pool of the renderers.
+	 */
+	private static <T> List<T> render(final List<? extends Callable<T>> tasks) throws IOException {
+		if (tasks.isEmpty()) {
+			return Collections.emptyList();
+		}
+		try {
+			return ChartRendererPool.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while rendering the NeoLoad trends");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Unable to render the NeoLoad trends", e.getCause());
+		}
+	}
+
+	/**
+	 * Remove the pictures that don't show the stored trends anymore, once the store is written.
+	 *
+	 * @param chartsFolder the folder of the rendered charts
+	 */
+	void removeStaleCharts(final File chartsFolder) {
+		final Set<File> charts = new HashSet<>();
+		for (int i = 0; i < neoloadGraphXPathStats.size(); i++) {
+			charts.add(getChartFile(chartsFolder, i));
+		}
+		final File[] files = chartsFolder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			// The temporary files are the pictures being rendered.
+			if (file.getName().endsWith(".png") && !charts.contains(file) && !file.delete()) {
+				LOGGER.log(Level.FINE, "Unable to delete the previous chart " + file);
+			}
+		}
+	}
+
+	private File getChartFile(final File chartsFolder, final int index) {
+		return new File(chartsFolder, getChartPrefix(index) + getChartKey(index) + ".png");
+	}
+
+	private static String getChartPrefix(final int index) {
+		return "stat" + String.format("%02d", index) + "-";
+	}
+
+	/**
+	 * Renders a chart under its key. The pictures of the previous keys are removed with the trends update, see
+	 * {@link #removeStaleCharts(File)}: a request that loaded an older store may render a picture while another request
+	 * serves the current one.
+	 */
+	private final class RenderChart implements Callable<File> {
+		private final File chartsFolder;
+		private final int index;
+
+		private RenderChart(final File chartsFolder, final int index) {
+			this.chartsFolder = chartsFolder;
+			this.index = index;
+		}
+
+		@Override
+		public File call() throws IOException {
+			final String prefix = getChartPrefix(index);
+			final File chart = getChartFile(chartsFolder, index);
+			if (!chartsFolder.isDirectory() && !chartsFolder.mkdirs() && !chartsFolder.isDirectory()) {
+				throw new IOException("Unable to create " + chartsFolder);
+			}
+			// Concurrent requests render their own file, the last one replaces the others.
+			final File tmp = File.createTempFile(prefix, ".tmp", chartsFolder);
+			try {
+				neoloadGraphXPathStats.get(index).writePng(tmp, store);
+				Files.move(tmp.toPath(), chart.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				if (tmp.exists() && !tmp.delete()) {
+					LOGGER.log(Level.FINE, "Unable to delete " + tmp);
+				}
+			}
+			return chart;
+		}
+	}
+
+	/**
+	 * Write the values of the graphs as json, the values of a curve are aligned with the build numbers and are null for
+	 * the builds without value. The json is written while the values are read, it is never held in memory.
+	 *
+	 * @param writer  the writer
+	 * @param from    the first build number, null from the oldest build of the trends
+	 * @param to      the last build number, null up to the newest build of the trends
+	 * @param metrics the titles or indexes of the graphs to write, empty for every graph
+	 * @throws IOException the io exception
+	 */
+	public void writeJson(final JsonWriter writer, final Integer from, final Integer to, final Collection<String> metrics) throws IOException {
+		final List<Integer> buildNumbers = new ArrayList<>();
+		for (int i = 0; i < store.size(); i++) {
+			final int buildNumber = store.getBuildNumber(i);
+			if ((from == null || buildNumber >= from) && (to == null || buildNumber <= to)) {
+				buildNumbers.add(buildNumber);
+			}
+		}
+		writer.beginObject();
+		writer.name("builds").beginArray();
+		for (Integer buildNumber : buildNumbers) {
+			writer.value(buildNumber);
+		}
+		writer.endArray();
+		writer.name("graphs").beginArray();
+		for (int i = 0; i < neoloadGraphXPathStats.size(); i++) {
+			final NeoloadGraphXPathStat graph = neoloadGraphXPathStats.get(i);
+			if (!metrics.isEmpty() && !metrics.contains(graph.getTitle()) && !metrics.contains(Integer.toString(i))) {
+				continue;
+			}
+			writer.beginObject();
+			writer.name("index").value(i);
+			writer.name("title").value(graph.getTitle());
+			writer.name("yLabel").value(graph.getyLabel());
+			writer.name("curves").beginArray();
+			for (NeoloadCurvesXPathStat curve : graph.getCurves()) {
+				writer.beginObject();
+				writer.name("legend").value(curve.getLegend());
+				writer.name("color").value(String.format("#%06x", curve.getColor().getRGB() & 0xFFFFFF));
+				writer.name("values").beginArray();
+				for (Integer buildNumber : buildNumbers) {
+					final float value = curve.getValue(store, buildNumber);
+					if (Float.isNaN(value)) {
+						writer.nullValue();
+					} else {
+						writer.value(Float.valueOf(value));
+					}
+				}
+				writer.endArray();
+				writer.endObject();
+			}
+			writer.endArray();
+			writer.endObject();
+		}
+		writer.endArray();
+		writer.endObject();
+		writer.flush();
+	}
+
+	/**
+	 * Drop the oldest builds beyond the maximum number of trends.
+	 */
+	void trimStore() {
+		store.trim(maxTrends);
+	}
+
+	/**
+	 * Use the values stored by a previous trend building. The builds dropped since the last snapshot of the store may
+	 * still be in its log, they are dropped again.
+	 *
+	 * @param store the store
+	 * @return true if the values were loaded, false if there is no store or it was built for another graphs definition.
+	 */
+	boolean load(final NeoloadTrendStore store) {
+		if (store == null || !getSignature().equals(store.getSignature())) {
+			return false;
+		}
+		this.store = store;
+		store.trim(maxTrends);
+		return true;
+	}
+
+	/**
+	 * Gets last build number.
+	 *
+	 * @return the number of the last build added to the graphs, 0 if there is none.
+	 */
+	int getLastBuildNumber() {
+		return store.getLastBuildNumber();
+	}
+
+	/**
+	 * Can append boolean.
+	 *
+	 * @param buildNumber the build number
+	 * @return true if the build is newer than the last build of the graphs or was already added.
+	 */
+	boolean canAppend(final int buildNumber) {
+		return buildNumber > store.getLastBuildNumber() || store.contains(buildNumber);
+	}
+
+	/**
+	 * Gets the store of the values added to the graphs.
+	 *
+	 * @return the store
+	 */
+	NeoloadTrendStore getStore() {
+		return store;
 	}
 
 	/**
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass extraction of the values needed by the trend graphs from a NeoLoad XML report.
+ * <p>
+ * The report is read with StAX and no tree is built, only the attributes selected by the requested XPath expressions are
+ * kept. Reading stops as soon as every expression has been resolved.
+ */
+public final class NeoloadReportExtractor {
+
+	private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+	/**
+	 * Utility classes are not intended to be instantiated.
+	 */
+	private NeoloadReportExtractor() {
+		throw new IllegalAccessError();
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		// report.xml declares report.dtd, it is not needed to read the values.
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		return factory;
+	}
+
+	/**
+	 * Test if an expression can be evaluated by the extractor.
+	 *
+	 * @param xPath the x path
+	 * @return true if the expression is supported
+	 */
+	public static boolean isSupported(final String xPath) {
+		return ReportPath.parse(xPath) != null;
+	}
+
+	/**
+	 * Extract the values of the expressions from a report file.
+	 *
+	 * @param report the report, compressed with gzip if its name ends with .gz
+	 * @param xPaths the x paths
+	 * @return the value of each supported expression, null when not found. Unsupported expressions are not in the map.
+	 * @throws IOException        the io exception
+	 * @throws XMLStreamException the xml stream exception
+	 */
+	public static Map<String, Float> extract(final File report, final Collection<String> xPaths) throws IOException, XMLStreamException {
+		try (InputStream inputStream = ReportCompression.openReport(report)) {
+			return extract(inputStream, report.toURI().toString(), xPaths);
+		}
+	}
+
+	/**
+	 * Extract the values of the expressions from a report stream.
+	 *
+	 * @param inputStream the input stream, not closed by this method
+	 * @param systemId    the system id used to report errors
+	 * @param xPaths      the x paths
+	 * @return the value of each supported expression, null when not found. Unsupported expressions are not in the map.
+	 * @throws XMLStreamException the xml stream exception
+	 */
+	public static Map<String, Float> extract(final InputStream inputStream, final String systemId, final Collection<String> xPaths) throws XMLStreamException {
+		final List<ReportPath> paths = new ArrayList<>();
+		for (String xPath : new LinkedHashSet<>(xPaths)) {
+			final ReportPath path = ReportPath.parse(xPath);
+			if (path != null) {
+				paths.add(path);
+			}
+		}
+		final ReportPathMatcher matcher = new ReportPathMatcher(paths);
+		if (!paths.isEmpty()) {
+			final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(systemId, inputStream);
+			try {
+				stream(reader, matcher);
+			} finally {
+				reader.close();
+			}
+		}
+		return matcher.getValues();
+	}
+
+	/**
+	 * Collect the statistics of a report file.
+	 *
+	 * @param report the report, compressed with gzip if its name ends with .gz
+	 * @return the statistics
+	 * @throws IOException        the io exception
+	 * @throws XMLStreamException the xml stream exception
+	 */
+	public static ReportMetrics collectMetrics(final File report) throws IOException, XMLStreamException {
+		try (InputStream inputStream = ReportCompression.openReport(report)) {
+			return collectMetrics(inputStream, report.toURI().toString());
+		}
+	}
+
+	/**
+	 * Collect the statistics of a report stream. Only the statistic elements and their ancestors are kept.
+	 *
+	 * @param inputStream the input stream, not closed by this method
+	 * @param systemId    the system id used to report errors
+	 * @return the statistics
+	 * @throws XMLStreamException the xml stream exception
+	 */
+	public static ReportMetrics collectMetrics(final InputStream inputStream, final String systemId) throws XMLStreamException {
+		final ReportMetrics metrics = new ReportMetrics();
+		final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(systemId, inputStream);
+		try {
+			final ReportPathMatcher.Attributes attributes = new ReportPathMatcher.Attributes() {
+				@Override
+				public String get(final String name) {
+					return reader.getAttributeValue(null, name);
+				}
+			};
+			// The open elements, an element gets an index in the metrics once a statistic is found below it.
+			final List<String[]> openElements = new ArrayList<>();
+			final List<Integer> openIndexes = new ArrayList<>();
+			while (reader.hasNext()) {
+				final int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					final String element = reader.getLocalName();
+					final String[] key = {element, attributes.get("name"), attributes.get("type")};
+					int index = -1;
+					if (ReportMetrics.STATISTIC_ELEMENTS.contains(element)) {
+						int parent = -1;
+						for (int i = 0; i < openElements.size(); i++) {
+							if (openIndexes.get(i) < 0) {
+								final String[] ancestor = openElements.get(i);
+								openIndexes.set(i, metrics.addNode(parent, ancestor[0], ancestor[1], ancestor[2], null));
+							}
+							parent = openIndexes.get(i);
+						}
+						index = metrics.addNode(parent, key[0], key[1], key[2], ReportMetrics.statisticValues(attributes));
+					}
+					openElements.add(key);
+					openIndexes.add(index);
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					openElements.remove(openElements.size() - 1);
+					openIndexes.remove(openIndexes.size() - 1);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return metrics;
+	}
+
+	private static void stream(final XMLStreamReader reader, final ReportPathMatcher matcher) throws XMLStreamException {
+		final ReportPathMatcher.Attributes attributes = new ReportPathMatcher.Attributes() {
+			@Override
+			public String get(final String name) {
+				return reader.getAttributeValue(null, name);
+			}
+		};
+		while (reader.hasNext() && !matcher.isComplete()) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					matcher.startElement(reader.getLocalName(), attributes);
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					matcher.endElement();
+					break;
+				default:
+					break;
+			}
+		}
+	}
+}
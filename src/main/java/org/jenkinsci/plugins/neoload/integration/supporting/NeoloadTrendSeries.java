@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.JobProperty;
+import hudson.model.JobPropertyDescriptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The scenarios published side by side in the trends of a job, each one is a series of every trend graph.
+ */
+public class NeoloadTrendSeries extends JobProperty {
+
+	private final List<String> series;
+
+	/**
+	 * Instantiates new trend series.
+	 *
+	 * @param series the names of the series
+	 */
+	public NeoloadTrendSeries(final List<String> series) {
+		this.series = new ArrayList<>(series);
+	}
+
+	/**
+	 * Gets series.
+	 *
+	 * @return the names of the series
+	 */
+	public List<String> getSeries() {
+		return Collections.unmodifiableList(series);
+	}
+
+	/**
+	 * Gets the series of a job.
+	 *
+	 * @param job the job
+	 * @return the names of the series, empty if the job publishes a single series
+	 */
+	public static List<String> getSeries(final Job<?, ?> job) {
+		final NeoloadTrendSeries property = job == null ? null : (NeoloadTrendSeries) job.getProperty(NeoloadTrendSeries.class);
+		return property == null ? Collections.<String>emptyList() : property.getSeries();
+	}
+
+	/**
+	 * Add series to a job, the job is only saved when a series is new.
+	 *
+	 * @param job    the job
+	 * @param series the names of the series
+	 * @return true if a series was added
+	 * @throws IOException the io exception
+	 */
+	public static synchronized boolean addSeries(final Job<?, ?> job, final Collection<String> series) throws IOException {
+		final Set<String> all = new LinkedHashSet<>(getSeries(job));
+		if (!all.addAll(series)) {
+			return false;
+		}
+		job.removeProperty(NeoloadTrendSeries.class);
+		job.addProperty(new NeoloadTrendSeries(new ArrayList<>(all)));
+		return true;
+	}
+
+	@Extension
+	public static class DescriptorImpl extends JobPropertyDescriptor {
+		public String getDisplayName() { return null; }
+
+		@Override
+		public boolean isApplicable(final Class<? extends Job> jobType) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The values of the trend graphs of a job, stored in the job directory next to the pictures so that a finished build
+ * can be added to the trends without reading the other builds.
+ * <p>
+ * Each x path is a column of build numbers and values held in primitive arrays. Builds are only appended, the oldest
+ * ones are dropped from the head of the columns. On disk a snapshot is followed by a log of the builds appended since,
+ * the log is compacted into a new snapshot once it holds {@link #COMPACTION_THRESHOLD} builds.
+ */
+public final class NeoloadTrendStore {
+
+	/**
+	 * The name of the snapshot in the job directory.
+	 */
+	public static final String FILE_NAME = "neoload-trend-store.gz";
+
+	/**
+	 * The name of the log in the job directory.
+	 */
+	public static final String LOG_FILE_NAME = "neoload-trend-store.log";
+
+	/**
+	 * The number of logged builds triggering a compaction.
+	 */
+	static final int COMPACTION_THRESHOLD = 32;
+
+	private static final Logger LOGGER = Logger.getLogger(NeoloadTrendStore.class.getName());
+
+	private static final int FORMAT_VERSION = 2;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Identifies the graphs definition the values were collected for.
+	 */
+	private final String signature;
+
+	/**
+	 * The number of every build, a build without report has no value in the other columns.
+	 */
+	private final Column builds = new Column(false);
+
+	/**
+	 * The values by x path.
+	 */
+	private final Map<String, Column> columns = new LinkedHashMap<>();
+
+	/**
+	 * The last build written in the snapshot or the log.
+	 */
+	private int lastSavedBuildNumber;
+
+	private int loggedBuilds;
+
+	private boolean compactionNeeded;
+
+	/**
+	 * Instantiates a new trend store.
+	 *
+	 * @param signature the signature of the graphs definition
+	 */
+	NeoloadTrendStore(final String signature) {
+		this.signature = signature;
+	}
+
+	/**
+	 * Gets signature.
+	 *
+	 * @return the signature
+	 */
+	String getSignature() {
+		return signature;
+	}
+
+	/**
+	 * Append the values of a build.
+	 *
+	 * @param buildNumber the build number
+	 * @param values      the value of each x path, null values are ignored
+	 * @return false if the build isn't newer than the last build of the store, it is not appended.
+	 */
+	boolean append(final int buildNumber, final Map<String, Float> values) {
+		if (buildNumber <= getLastBuildNumber()) {
+			return false;
+		}
+		builds.append(buildNumber, 0);
+		for (Map.Entry<String, Float> entry : values.entrySet()) {
+			if (entry.getKey() != null && entry.getValue() != null) {
+				Column column = columns.get(entry.getKey());
+				if (column == null) {
+					column = new Column(true);
+					columns.put(entry.getKey(), column);
+				}
+				column.append(buildNumber, entry.getValue());
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets last build number.
+	 *
+	 * @return the number of the last build, 0 if the store is empty.
+	 */
+	int getLastBuildNumber() {
+		return builds.size() == 0 ? 0 : builds.getBuildNumber(builds.size() - 1);
+	}
+
+	/**
+	 * Contains boolean.
+	 *
+	 * @param buildNumber the build number
+	 * @return true if the build was appended, with or without values.
+	 */
+	boolean contains(final int buildNumber) {
+		return builds.indexOf(buildNumber) >= 0;
+	}
+
+	/**
+	 * Size int.
+	 *
+	 * @return the number of builds
+	 */
+	int size() {
+		return builds.size();
+	}
+
+	/**
+	 * Gets build number.
+	 *
+	 * @param index the index of the build, the oldest build is at 0
+	 * @return the build number
+	 */
+	int getBuildNumber(final int index) {
+		return builds.getBuildNumber(index);
+	}
+
+	/**
+	 * Gets value.
+	 *
+	 * @param xPath       the x path
+	 * @param buildNumber the build number
+	 * @return the value or {@link Float#NaN} if the build has no value for the x path.
+	 */
+	float getValue(final String xPath, final int buildNumber) {
+		final Column column = columns.get(xPath);
+		if (column == null) {
+			return Float.NaN;
+		}
+		final int index = column.indexOf(buildNumber);
+		return index < 0 ? Float.NaN : column.getValue(index);
+	}
+
+	/**
+	 * Drop the oldest builds beyond a maximum number of builds.
+	 *
+	 * @param maxBuilds the maximum number of builds, no limit if 0 or less
+	 */
+	void trim(final int maxBuilds) {
+		if (maxBuilds <= 0 || builds.size() <= maxBuilds) {
+			return;
+		}
+		final int firstBuildNumber = builds.getBuildNumber(builds.size() - maxBuilds);
+		builds.dropBefore(firstBuildNumber);
+		final Iterator<Column> iterator = columns.values().iterator();
+		while (iterator.hasNext()) {
+			final Column column = iterator.next();
+			column.dropBefore(firstBuildNumber);
+			if (column.size() == 0) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private Map<String, Float> getValues(final int buildNumber) {
+		final Map<String, Float> values = new LinkedHashMap<>();
+		for (Map.Entry<String, Column> entry : columns.entrySet()) {
+			final int index = entry.getValue().indexOf(buildNumber);
+			if (index >= 0) {
+				values.put(entry.getKey(), entry.getValue().getValue(index));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Gets the log file of a snapshot.
+	 *
+	 * @param file the snapshot file
+	 * @return the log file
+	 */
+	static File getLogFile(final File file) {
+		return new File(file.getParentFile(), LOG_FILE_NAME);
+	}
+
+	/**
+	 * Gets the version of the files of a store, it changes whenever the store is written or a build is logged.
+	 *
+	 * @param file the snapshot file
+	 * @return the modification times and the sizes of the snapshot and of the log
+	 */
+	static String getFilesVersion(final File file) {
+		final File logFile = getLogFile(file);
+		return file.lastModified() + ":" + file.length() + "/" + logFile.lastModified() + ":" + logFile.length();
+	}
+
+	/**
+	 * Read the store of a job, the snapshot then the builds of the log.
+	 *
+	 * @param file the snapshot file
+	 * @return the store or null if the snapshot doesn't exist or can't be read
+	 */
+	static NeoloadTrendStore read(final File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		final NeoloadTrendStore store;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+			if (in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			store = new NeoloadTrendStore(in.readUTF());
+			final int buildCount = in.readInt();
+			for (int i = 0; i < buildCount; i++) {
+				store.builds.append(in.readInt(), 0);
+			}
+			final int columnCount = in.readInt();
+			for (int i = 0; i < columnCount; i++) {
+				final String xPath = in.readUTF();
+				final int size = in.readInt();
+				final Column column = new Column(true);
+				for (int j = 0; j < size; j++) {
+					column.append(in.readInt(), in.readFloat());
+				}
+				store.columns.put(xPath, column);
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Ignoring unreadable NeoLoad trends " + file.getAbsolutePath(), e);
+			return null;
+		}
+		store.readLog(getLogFile(file));
+		store.lastSavedBuildNumber = store.getLastBuildNumber();
+		return store;
+	}
+
+	private void readLog(final File logFile) {
+		if (!logFile.isFile()) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+			if (in.readInt() != FORMAT_VERSION || !signature.equals(in.readUTF())) {
+				compactionNeeded = true;
+				return;
+			}
+			while (true) {
+				final int buildNumber;
+				try {
+					buildNumber = in.readInt();
+				} catch (EOFException e) {
+					return;
+				}
+				final int count = in.readInt();
+				final Map<String, Float> values = new LinkedHashMap<>();
+				for (int i = 0; i < count; i++) {
+					values.put(in.readUTF(), in.readFloat());
+				}
+				append(buildNumber, values);
+				loggedBuilds++;
+			}
+		} catch (IOException e) {
+			// The builds after a truncated record are added again by the next update, the log is rewritten then.
+			LOGGER.log(Level.FINE, "Truncated NeoLoad trends log " + logFile.getAbsolutePath(), e);
+			compactionNeeded = true;
+		}
+	}
+
+	/**
+	 * Save the builds appended since the store was read or saved. They are appended to the log, unless the log is
+	 * compacted into a new snapshot.
+	 *
+	 * @param file the snapshot file
+	 * @throws IOException the io exception
+	 */
+	void save(final File file) throws IOException {
+		final List<Integer> unsavedBuilds = new ArrayList<>();
+		for (int i = builds.size() - 1; i >= 0 && builds.getBuildNumber(i) > lastSavedBuildNumber; i--) {
+			unsavedBuilds.add(0, builds.getBuildNumber(i));
+		}
+		if (compactionNeeded || !file.isFile() || loggedBuilds + unsavedBuilds.size() > COMPACTION_THRESHOLD) {
+			write(file);
+			return;
+		}
+		if (unsavedBuilds.isEmpty()) {
+			return;
+		}
+		final File logFile = getLogFile(file);
+		final boolean newLog = !logFile.isFile() || logFile.length() == 0;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)))) {
+			if (newLog) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(signature);
+			}
+			for (Integer buildNumber : unsavedBuilds) {
+				final Map<String, Float> values = getValues(buildNumber);
+				out.writeInt(buildNumber);
+				out.writeInt(values.size());
+				for (Map.Entry<String, Float> entry : values.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeFloat(entry.getValue());
+				}
+			}
+		}
+		loggedBuilds += unsavedBuilds.size();
+		lastSavedBuildNumber = getLastBuildNumber();
+	}
+
+	/**
+	 * Write a snapshot of the store and remove the log. The snapshot is replaced atomically.
+	 *
+	 * @param file the snapshot file
+	 * @throws IOException the io exception
+	 */
+	void write(final File file) throws IOException {
+		// A temporary file of its own in the same folder, concurrent writers don't overwrite each other's file.
+		final File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))))) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(signature);
+				out.writeInt(builds.size());
+				for (int i = 0; i < builds.size(); i++) {
+					out.writeInt(builds.getBuildNumber(i));
+				}
+				out.writeInt(columns.size());
+				for (Map.Entry<String, Column> entry : columns.entrySet()) {
+					final Column column = entry.getValue();
+					out.writeUTF(entry.getKey());
+					out.writeInt(column.size());
+					for (int i = 0; i < column.size(); i++) {
+						out.writeInt(column.getBuildNumber(i));
+						out.writeFloat(column.getValue(i));
+					}
+				}
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+		Files.deleteIfExists(getLogFile(file).toPath());
+		loggedBuilds = 0;
+		compactionNeeded = false;
+		lastSavedBuildNumber = getLastBuildNumber();
+	}
+
+	/**
+	 * Build numbers in ascending order and their values. The dropped builds stay at the head of the arrays until they
+	 * are reused by an append.
+	 */
+	private static final class Column {
+		private int[] buildNumbers;
+		private float[] values;
+		private int start;
+		private int end;
+
+		private Column(final boolean withValues) {
+			buildNumbers = new int[INITIAL_CAPACITY];
+			values = withValues ? new float[INITIAL_CAPACITY] : null;
+		}
+
+		private int size() {
+			return end - start;
+		}
+
+		private int getBuildNumber(final int index) {
+			return buildNumbers[start + index];
+		}
+
+		private float getValue(final int index) {
+			return values[start + index];
+		}
+
+		private int indexOf(final int buildNumber) {
+			final int index = Arrays.binarySearch(buildNumbers, start, end, buildNumber);
+			return index < 0 ? -1 : index - start;
+		}
+
+		private void append(final int buildNumber, final float value) {
+			if (end == buildNumbers.length) {
+				compact();
+			}
+			buildNumbers[end] = buildNumber;
+			if (values != null) {
+				values[end] = value;
+			}
+			end++;
+		}
+
+		private void dropBefore(final int buildNumber) {
+			while (start < end && buildNumbers[start] < buildNumber) {
+				start++;
+			}
+		}
+
+		/**
+		 * Move the builds to the head of the arrays, the arrays only grow when they are more than half full.
+		 */
+		private void compact() {
+			final int size = size();
+			final int capacity = size < buildNumbers.length / 2 ? buildNumbers.length : buildNumbers.length * 2;
+			final int[] newBuildNumbers = capacity == buildNumbers.length ? buildNumbers : new int[capacity];
+			System.arraycopy(buildNumbers, start, newBuildNumbers, 0, size);
+			buildNumbers = newBuildNumbers;
+			if (values != null) {
+				final float[] newValues = capacity == values.length ? values : new float[capacity];
+				System.arraycopy(values, start, newValues, 0, size);
+				values = newValues;
+			}
+			start = 0;
+			end = size;
+		}
+	}
+}
@@ -49,6 +49,7 @@ public class PipelineAsCodeEncodeDecode {
 	private static final String TEST_NAME = "testName";
 	private static final String TEST_DESCRIPTION = "testDescription";
 	private static final String GRAPH_TRENDS_MAX_POINTS = "graphTrendsMaxPoints";
+	private static final String GRAPH_TRENDS_SVG = "graphTrendsSvg";
 	private static final String SCENARIO = "scenario";
 	private static final String NTS_SERVER = "server";
 	private static final String DURATION = "duration";
@@ -66,6 +67,16 @@ public class PipelineAsCodeEncodeDecode {
 	private static final String GRAPH_NAME = "name";
 	private static final String COMMAND_LINE_OPTION = "commandLineOption";
 	private static final String AUTO_ARCHIVE = "autoArchive";
+	private static final String ABORT_RULES = "abortRules";
+	private static final String SHARD_INDEX = "shardIndex";
+	private static final String SHARD_COUNT = "shardCount";
+	private static final String TREND_SERIES = "trendSeries";
+	private static final String DEDUPLICATE_REPORT_ASSETS = "deduplicateReportAssets";
+	private static final String COMPRESS_REPORTS = "compressReports";
+	private static final String ABORT_STATISTIC = "statistic";
+	private static final String ABORT_OPERATOR = "operator";
+	private static final String ABORT_THRESHOLD = "threshold";
+	private static final String ABORT_INTERVALS = "intervals";
 
 	public static NeoloadRunStep decode(final Map<String, Object> map) throws Exception {
 		NeoloadRunStep neoloadRunStep = new NeoloadRunStep(getString(map, SCENARIO));
@@ -82,6 +93,12 @@ public class PipelineAsCodeEncodeDecode {
 		decodeGraph(map, neoloadRunStep);
 
 		neoloadRunStep.setAutoArchive(getOptionalBoolean(map, AUTO_ARCHIVE, neoloadRunStep.isAutoArchive()));
+		parseAbortRules(map, neoloadRunStep);
+		neoloadRunStep.setShardIndex(getOptionalNumber(map, SHARD_INDEX, 0));
+		neoloadRunStep.setShardCount(getOptionalNumber(map, SHARD_COUNT, 0));
+		neoloadRunStep.setTrendSeries(getOptionalString(map, TREND_SERIES, null));
+		neoloadRunStep.setDeduplicateReportAssets(getOptionalBoolean(map, DEDUPLICATE_REPORT_ASSETS, false));
+		neoloadRunStep.setCompressReports(getOptionalBoolean(map, COMPRESS_REPORTS, false));
 		return neoloadRunStep;
 	}
 
@@ -90,6 +107,9 @@ public class PipelineAsCodeEncodeDecode {
 		if (neoloadGraphDefinitionStep.getMaxTrends() > 0) {
 			map.put(GRAPH_TRENDS_MAX_POINTS, neoloadGraphDefinitionStep.getMaxTrends());
 		}
+		if (neoloadGraphDefinitionStep.isSvgTrends()) {
+			map.put(GRAPH_TRENDS_SVG, "true");
+		}
 		PipelineAsCodeEncodeDecode.serializeTrendsGraphs(map, neoloadGraphDefinitionStep);
 	}
 
@@ -139,6 +159,18 @@ public class PipelineAsCodeEncodeDecode {
 		if (!neoloadRunStep.isAutoArchive()) {
 			stringObjectMap.put(AUTO_ARCHIVE, "false");
 		}
+		serializeAbortRules(stringObjectMap, neoloadRunStep);
+		if (neoloadRunStep.getShardCount() > 1) {
+			stringObjectMap.put(SHARD_INDEX, neoloadRunStep.getShardIndex());
+			stringObjectMap.put(SHARD_COUNT, neoloadRunStep.getShardCount());
+		}
+		addIfNotEmpty(stringObjectMap, TREND_SERIES, neoloadRunStep.getTrendSeries());
+		if (neoloadRunStep.isDeduplicateReportAssets()) {
+			stringObjectMap.put(DEDUPLICATE_REPORT_ASSETS, "true");
+		}
+		if (neoloadRunStep.isCompressReports()) {
+			stringObjectMap.put(COMPRESS_REPORTS, "true");
+		}
 
 		return stringObjectMap;
 
@@ -147,6 +179,7 @@ public class PipelineAsCodeEncodeDecode {
 	public static void decodeGraph(final Map<String, Object> map, NeoloadGraphDefinitionStep neoloadGraphDefinitionStep) throws NeoloadParseException {
 		PipelineAsCodeEncodeDecode.parseTrendGraphs(map, neoloadGraphDefinitionStep);
 		neoloadGraphDefinitionStep.setMaxTrends(getOptionalNumber(map, GRAPH_TRENDS_MAX_POINTS, 0));
+		neoloadGraphDefinitionStep.setSvgTrends(getOptionalBoolean(map, GRAPH_TRENDS_SVG, false));
 
 	}
 
@@ -246,6 +279,65 @@ public class PipelineAsCodeEncodeDecode {
 		return graphOptionsInfo;
 	}
 
+	private static void parseAbortRules(final Map<String, Object> map, final NeoloadRunStep neoloadRunStep) throws NeoloadParseException {
+		final Object o = map.get(ABORT_RULES);
+		if (o == null) {
+			return;
+		}
+		if (!(o instanceof List)) {
+			throw new NeoloadParseException("Unrecognized abort rules");
+		}
+		final List<LiveAbortRule> rules = new ArrayList<>();
+		for (Object obj : (List) o) {
+			if (!(obj instanceof Map)) {
+				throw new NeoloadParseException("Unrecognized abort rule");
+			}
+			final Map<String, Object> ruleMap = (Map<String, Object>) obj;
+			final float threshold;
+			try {
+				threshold = Float.parseFloat(getString(ruleMap, ABORT_THRESHOLD));
+			} catch (NumberFormatException e) {
+				throw new NeoloadParseException("Unrecognized abort rule threshold");
+			}
+			final String statistic = getString(ruleMap, ABORT_STATISTIC);
+			if (!LiveAbortRule.isKnownStatistic(statistic)) {
+				throw new NeoloadParseException("Unrecognized abort rule statistic: " + statistic);
+			}
+			final String operator = getOptionalString(ruleMap, ABORT_OPERATOR, LiveAbortRule.OPERATOR_GREATER);
+			if (!LiveAbortRule.isKnownOperator(operator)) {
+				throw new NeoloadParseException("Unrecognized abort rule operator: " + operator);
+			}
+			rules.add(new LiveAbortRule(statistic,
+					operator,
+					threshold,
+					getOptionalNumber(ruleMap, ABORT_INTERVALS, 1)));
+		}
+		if (!rules.isEmpty()) {
+			neoloadRunStep.setLiveAbortRules(rules);
+		}
+	}
+
+	private static void serializeAbortRules(final Map<String, Object> stringObjectMap, final NeoloadRunStep neoloadRunStep) {
+		final List<LiveAbortRule> rules = neoloadRunStep.getLiveAbortRules();
+		if (rules == null || rules.isEmpty()) {
+			return;
+		}
+		final List<Object> ruleList = new ArrayList<>();
+		for (LiveAbortRule rule : rules) {
+			final Map<String, Object> ruleMap = new LinkedHashMap<>();
+			ruleMap.put(ABORT_STATISTIC, rule.getStatistic());
+			if (!LiveAbortRule.OPERATOR_GREATER.equals(rule.getOperator())) {
+				ruleMap.put(ABORT_OPERATOR, rule.getOperator());
+			}
+			ruleMap.put(ABORT_THRESHOLD, rule.getThreshold());
+			if (rule.getIntervals() != 1) {
+				ruleMap.put(ABORT_INTERVALS, rule.getIntervals());
+			}
+			ruleList.add(ruleMap);
+		}
+		stringObjectMap.put(ABORT_RULES, ruleList);
+	}
+
 	private static void parseSharedLicense(final Map<String, Object> map, final NeoloadRunStep neoloadRunStep) throws NeoloadParseException {
 		final Object o = map.get(SHARED_LICENSE);
 		if (o != null) {
@@ -55,6 +55,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -69,10 +70,19 @@ public final class PluginUtils implements Serializable, Converter {
 	 * The constant GRAPH_LOCK.
 	 */
 	public static final LockManager GRAPH_LOCK = new LockManager();
+
+	/**
+	 * The constant GRAPH_QUEUE, runs the trend rebuilds requested from the web pages.
+	 */
+	public static final GraphBuildQueue GRAPH_QUEUE = new GraphBuildQueue(2);
 	/**
 	 * Log various messages.
 	 */
 	private static final Logger LOGGER = Logger.getLogger(PluginUtils.class.getName());
+	/**
+	 * The trends loaded for the pages and the charts of each job, read again when the store files change.
+	 */
+	private static final Map<Job<?, ?>, LoadedTrends> LOADED_TRENDS = Collections.synchronizedMap(new WeakHashMap<Job<?, ?>, LoadedTrends>());
 	/**
 	 * Generated.
 	 */
@@ -431,7 +441,7 @@ public final class PluginUtils implements Serializable, Converter {
 			LOGGER.log(Level.SEVERE, "NeoResultsAction.findHtmlReportArtifact() build is null.");
 			return null;
 		}
-		return findArtifacts(paths, build.getArtifacts(), build.getNumber());
+		return findArtifacts(paths, ArtifactIndex.of(build), build.getNumber());
 	}
 
 	/**
@@ -449,23 +459,32 @@ public final class PluginUtils implements Serializable, Converter {
 			LOGGER.log(Level.SEVERE, "NeoResultsAction.findHtmlReportArtifact() build is null.");
 			return null;
 		}
-		return findArtifacts(paths, build.getArtifacts(), build.getNumber());
+		return findArtifacts(paths, ArtifactIndex.of(build), build.getNumber());
 	}
 
 
 	public static Run.Artifact findArtifacts(final List<String> paths, final List artifacts, final int buildnumber) {
+		//Because the run and action is little different.
+		return findArtifacts(paths, new ArtifactIndex(artifacts), buildnumber);
+	}
+
+	private static Run.Artifact findArtifacts(final List<String> paths, final ArtifactIndex artifactIndex, final int buildnumber) {
+		final String buildNumber = Integer.toString(buildnumber);
 		//To be compatible  with older we try different paths.
 		for (String path : paths) {
-			path = path.replaceAll("\\$\\{BUILD_NUMBER\\}", Integer.toString(buildnumber));
+			path = path.replace("${BUILD_NUMBER}", buildNumber);
 			//Variable issues ${workspace/toto become /toto and it not found.
 			while (path.startsWith(File.pathSeparator)) {
 				path = path.substring(1);
 			}
-			for (Object object : artifacts) {
-				Run.Artifact artifact = (Run.Artifact) object;//Because the run and action is little different.
-				if (artifact.relativePath.endsWith(path)) {
-					return artifact;
-				}
+			final Run.Artifact artifact = artifactIndex.findBySuffix(path);
+			if (artifact != null) {
+				return artifact;
+			}
+			// The report may have been archived compressed.
+			final Run.Artifact compressedArtifact = artifactIndex.findBySuffix(path + ReportCompression.GZIP_EXTENSION);
+			if (compressedArtifact != null) {
+				return compressedArtifact;
 			}
 		}
 		return null;
@@ -489,10 +508,12 @@ public final class PluginUtils implements Serializable, Converter {
 	}
 
 	/**
-	 * @param valArg
-	 * @return
+	 * Convert a value formatted by NeoLoad to a number.
+	 *
+	 * @param valArg the value
+	 * @return the number or null if the value is not a number.
 	 */
-	private static Float extractNeoLoadNumber(final String valArg) {
+	static Float extractNeoLoadNumber(final String valArg) {
 		String val = StringUtils.trimToEmpty(valArg);
 
 		// remove spaces etc
@@ -535,6 +556,16 @@ public final class PluginUtils implements Serializable, Converter {
 		return new File(project.getRootDir(), "neoload-trend");
 	}
 
+	/**
+	 * Gets the file storing the values of the trends.
+	 *
+	 * @param project the project
+	 * @return the trend store file
+	 */
+	public static File getTrendStoreFile(Job<?, ?> project) {
+		return new File(project.getRootDir(), NeoloadTrendStore.FILE_NAME);
+	}
+
 	/**
 	 * Build graph.
 	 *
@@ -545,30 +576,23 @@ public final class PluginUtils implements Serializable, Converter {
 	public static void buildGraph(final File picturesFolder, final NeoLoadPluginOptions npo, final AbstractProject<?, ?> project) {
 		if (GRAPH_LOCK.tryLock(project)) {
 			try {
-				picturesFolder.mkdirs();
-
-				if (picturesFolder.isDirectory()) {
-					//Clean
-					for (File file : picturesFolder.listFiles()) {
-						file.delete();
-					}
-					NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(npo);
-
-					for (final AbstractBuild<?, ?> build : getLimitedBuilds(npo, project)) {
-						neoloadGraphsStatistics.addBuild(build);
-					}
-					try {
-						neoloadGraphsStatistics.writePng(picturesFolder);
-					} catch (IOException e) {
-						LOGGER.log(Level.WARNING, "Exception occurs during the picture writing ", e);
-					}
-				}
+				rebuildGraph(picturesFolder, npo, project);
 			} finally {
 				GRAPH_LOCK.unlock(project);
 			}
 		}
 	}
 
+	private static void rebuildGraph(final File picturesFolder, final NeoLoadPluginOptions npo, final AbstractProject<?, ?> project) {
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(npo, NeoloadTrendSeries.getSeries(project));
+		final List<AbstractBuild<?, ?>> builds = new ArrayList<>();
+		for (final AbstractBuild<?, ?> build : getLimitedBuilds(npo, project)) {
+			builds.add(build);
+		}
+		neoloadGraphsStatistics.addBuilds(builds);
+		writeGraph(picturesFolder, neoloadGraphsStatistics, project);
+	}
+
 	/**
 	 * Build graph.
 	 *
@@ -579,28 +603,225 @@ public final class PluginUtils implements Serializable, Converter {
 	public static void buildGraph(final File picturesFolder, final NeoLoadPluginOptions npo, final Job<?, ?> project) {
 		if (GRAPH_LOCK.tryLock(project)) {
 			try {
-				picturesFolder.mkdirs();
+				rebuildGraph(picturesFolder, npo, project);
+			} finally {
+				GRAPH_LOCK.unlock(project);
+			}
+		}
+	}
 
-				if (picturesFolder.isDirectory()) {
-					//Clean
-					for (File file : picturesFolder.listFiles()) {
-						file.delete();
-					}
-					NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(npo);
+	private static void rebuildGraph(final File picturesFolder, final NeoLoadPluginOptions npo, final Job<?, ?> project) {
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(npo, NeoloadTrendSeries.getSeries(project));
+		final List<Run<?, ?>> builds = new ArrayList<>();
+		for (final Run<?, ?> build : getLimitedBuilds(npo, project)) {
+			builds.add(build);
+		}
+		neoloadGraphsStatistics.addRuns(builds);
+		writeGraph(picturesFolder, neoloadGraphsStatistics, project);
+	}
 
-					for (final Run<?, ?> build : getLimitedBuilds(npo, project)) {
-						neoloadGraphsStatistics.addBuild(build);
-					}
-					try {
-						neoloadGraphsStatistics.writePng(picturesFolder);
-					} catch (IOException e) {
-						LOGGER.log(Level.WARNING, "Exception occurs during the picture writing ", e);
-					}
+	/**
+	 * Store the values of the trends. The charts are not rendered here: the png charts are rendered from the store when
+	 * they are first requested and the svg charts are always written on request.
+	 */
+	private static void writeGraph(final File picturesFolder, final NeoloadGraphsStatistics neoloadGraphsStatistics, final Job<?, ?> project) {
+		neoloadGraphsStatistics.trimStore();
+		try {
+			neoloadGraphsStatistics.getStore().write(getTrendStoreFile(project));
+			if (!picturesFolder.isDirectory() && !picturesFolder.mkdirs()) {
+				LOGGER.log(Level.WARNING, "Unable to create " + picturesFolder);
+			}
+			TrendPictures.removeGenerations(picturesFolder);
+			neoloadGraphsStatistics.removeStaleCharts(TrendPictures.getChartsFolder(picturesFolder));
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Exception occurs during the trend storing ", e);
+		}
+	}
+
+	private static void updateGraph(final File picturesFolder, final NeoloadGraphsStatistics neoloadGraphsStatistics, final Job<?, ?> project) {
+		neoloadGraphsStatistics.trimStore();
+		try {
+			neoloadGraphsStatistics.getStore().save(getTrendStoreFile(project));
+			neoloadGraphsStatistics.removeStaleCharts(TrendPictures.getChartsFolder(picturesFolder));
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Exception occurs during the trend storing ", e);
+		}
+	}
+
+	/**
+	 * Load the trends of a job from its trend store. The trends are kept until the store files or the options of the
+	 * job change, the pages and the charts requested with them don't read the store again.
+	 *
+	 * @param project the project
+	 * @return the trends or null if they were not built yet for the current graphs definition
+	 */
+	public static NeoloadGraphsStatistics loadTrends(final Job<?, ?> project) {
+		// The freestyle jobs have the options of their builder, the pipelines a job property.
+		final NeoLoadPluginOptions npo = project instanceof AbstractProject ? getPluginOptions((AbstractProject<?, ?>) project)
+				: getPluginOptions(project);
+		if (npo == null) {
+			return null;
+		}
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(npo, NeoloadTrendSeries.getSeries(project));
+		final String optionsSignature = neoloadGraphsStatistics.getOptionsSignature();
+		final File storeFile = getTrendStoreFile(project);
+		final String filesVersion = NeoloadTrendStore.getFilesVersion(storeFile);
+		final LoadedTrends loaded = LOADED_TRENDS.get(project);
+		if (loaded != null && loaded.isCurrent(optionsSignature, filesVersion)) {
+			return loaded.trends;
+		}
+		final NeoloadGraphsStatistics trends = neoloadGraphsStatistics.load(NeoloadTrendStore.read(storeFile)) ? neoloadGraphsStatistics : null;
+		LOADED_TRENDS.put(project, new LoadedTrends(optionsSignature, filesVersion, trends));
+		return trends;
+	}
+
+	/**
+	 * The trends of a job loaded from its store files.
+	 */
+	private static final class LoadedTrends {
+		/**
+		 * The options aren't kept, the job property refers to the job and the job would never be released.
+		 */
+		private final String optionsSignature;
+		private final String filesVersion;
+		private final NeoloadGraphsStatistics trends;
+
+		private LoadedTrends(final String optionsSignature, final String filesVersion, final NeoloadGraphsStatistics trends) {
+			this.optionsSignature = optionsSignature;
+			this.filesVersion = filesVersion;
+			this.trends = trends;
+		}
+
+		private boolean isCurrent(final String currentOptionsSignature, final String currentFilesVersion) {
+			return optionsSignature.equals(currentOptionsSignature) && filesVersion.equals(currentFilesVersion);
+		}
+	}
+
+	/**
+	 * Add a finished build to the trends. The values of the other builds are read from the trend store, the charts
+	 * showing the build are rendered again when they are requested. When the store is missing, was built for another graphs definition or the
+	 * build finished after a newer build was stored, the trends are fully rebuilt.
+	 *
+	 * @param build the finished build
+	 */
+	public static void updateGraph(final AbstractBuild<?, ?> build) {
+		final AbstractProject<?, ?> project = build.getProject();
+		final NeoLoadPluginOptions npo = getPluginOptions(project);
+		updateGraph(project, npo, build, new TrendUpdate() {
+			@Override
+			public void addBuilds(final NeoloadGraphsStatistics neoloadGraphsStatistics, final int lastBuildNumber) {
+				neoloadGraphsStatistics.addBuilds(getBuildsToAdd(project.getBuilds(), build, lastBuildNumber));
+			}
+
+			@Override
+			public void rebuild(final File picturesFolder) {
+				rebuildGraph(picturesFolder, npo, project);
+			}
+		});
+	}
+
+	/**
+	 * Add a finished build to the trends. The values of the other builds are read from the trend store, the charts
+	 * showing the build are rendered again when they are requested. When the store is missing, was built for another graphs definition or the
+	 * build finished after a newer build was stored, the trends are fully rebuilt.
+	 *
+	 * @param build the finished build
+	 */
+	public static void updateGraph(final Run<?, ?> build) {
+		final Job<?, ?> project = build.getParent();
+		final NeoLoadPluginOptions npo = getPluginOptions(project);
+		updateGraph(project, npo, build, new TrendUpdate() {
+			@Override
+			public void addBuilds(final NeoloadGraphsStatistics neoloadGraphsStatistics, final int lastBuildNumber) {
+				neoloadGraphsStatistics.addRuns(getBuildsToAdd(project.getBuilds(), build, lastBuildNumber));
+			}
+
+			@Override
+			public void rebuild(final File picturesFolder) {
+				rebuildGraph(picturesFolder, npo, project);
+			}
+		});
+	}
+
+	/**
+	 * Reads the builds of a freestyle job or of a pipeline for a trend update.
+	 */
+	private interface TrendUpdate {
+		/**
+		 * Add the finished build and the builds finished since the last stored one.
+		 */
+		void addBuilds(NeoloadGraphsStatistics neoloadGraphsStatistics, int lastBuildNumber);
+
+		/**
+		 * Rebuild the trends from the builds of the job.
+		 */
+		void rebuild(File picturesFolder);
+	}
+
+	/**
+	 * Add a finished build to the trends of a freestyle job or of a pipeline.
+	 *
+	 * @param project the job of the build
+	 * @param npo     the options of the job
+	 * @param build   the finished build
+	 * @param update  the way the builds of the job are added
+	 */
+	private static void updateGraph(final Job<?, ?> project, final NeoLoadPluginOptions npo, final Run<?, ?> build,
+									final TrendUpdate update) {
+		try {
+			final File picturesFolder = getPicturesFolder(project);
+			lockTrends(project);
+			try {
+				final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(npo, NeoloadTrendSeries.getSeries(project));
+				if (picturesFolder.isDirectory() && neoloadGraphsStatistics.load(NeoloadTrendStore.read(getTrendStoreFile(project)))
+						&& neoloadGraphsStatistics.canAppend(build.getNumber())) {
+					update.addBuilds(neoloadGraphsStatistics, neoloadGraphsStatistics.getLastBuildNumber());
+					updateGraph(picturesFolder, neoloadGraphsStatistics, project);
+				} else {
+					update.rebuild(picturesFolder);
 				}
 			} finally {
 				GRAPH_LOCK.unlock(project);
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.log(Level.WARNING, "Interrupted while waiting for the trends of " + project.getFullName(), e);
+		} catch (Throwable th) {
+			LOGGER.log(Level.WARNING, "Exception occurs during the trend building", th);
+		}
+	}
+
+	/**
+	 * Take the lock of the trends of a job, waiting for the rebuild holding it. The rebuild may have read the builds
+	 * before the finished build, the build would be missing from the trends until the next one if it was skipped.
+	 */
+	private static void lockTrends(final Job<?, ?> project) throws InterruptedException, ExecutionException {
+		while (!GRAPH_LOCK.tryLock(project)) {
+			GRAPH_LOCK.getCompletion(project).get();
+		}
+	}
+
+	/**
+	 * Gets the builds to add to the trends: the finished build and the builds newer than the last stored one, a build
+	 * finishing while the trends were locked is caught up this way.
+	 *
+	 * @param builds          the builds of the project, newest first
+	 * @param build           the finished build
+	 * @param lastBuildNumber the last build number in the trend store
+	 * @return the builds to add
+	 */
+	private static <R extends Run<?, ?>> List<R> getBuildsToAdd(final Iterable<? extends R> builds, final R build, final int lastBuildNumber) {
+		final List<R> buildsToAdd = new ArrayList<>();
+		for (R run : builds) {
+			if (run.getNumber() <= lastBuildNumber) {
+				break;
+			}
+			buildsToAdd.add(run);
 		}
+		if (build.getNumber() > lastBuildNumber && !buildsToAdd.contains(build)) {
+			buildsToAdd.add(build);
+		}
+		return buildsToAdd;
 	}
 
 	private static List<AbstractBuild> getLimitedBuilds(NeoLoadPluginOptions npo, final AbstractProject project) {
@@ -710,15 +931,18 @@ public final class PluginUtils implements Serializable, Converter {
 
 	public static String forgeArtifactoryPath(final NeoBuildAction neoBuildAction) {
 		List<String> paths = new ArrayList<>();
+		final String compressedExtension = neoBuildAction.isCompressReports() ? ReportCompression.GZIP_EXTENSION : "";
 		final String htmlReport = neoBuildAction.getHtmlReport();
 		if (StringUtils.isNotEmpty(htmlReport)) {
-			paths.add(htmlReport);
-			final File file = new File(htmlReport);
-			paths.add(file.getParent() + "/" + FilenameUtils.removeExtension(file.getName()) + "_files/**");
+			paths.add(htmlReport + compressedExtension);
+			if (!neoBuildAction.isDeduplicateReportAssets()) {
+				// Otherwise the assets are stored once per job by ReportAssetStore.
+				paths.add(getReportAssetsPath(htmlReport) + "/**");
+			}
 		}
 		final String xmlReport = neoBuildAction.getXmlReport();
 		if (StringUtils.isNotEmpty(xmlReport)) {
-			paths.add(xmlReport);
+			paths.add(xmlReport + compressedExtension);
 			paths.add(xmlReport.replace(".xml", ".dtd"));
 		}
 		addIfNotEmpty(paths, neoBuildAction.getPdfReport());
@@ -726,6 +950,17 @@ public final class PluginUtils implements Serializable, Converter {
 		return StringUtils.join(paths, ",");
 	}
 
+	/**
+	 * Gets the directory of the assets (images, styles, scripts) of an html report.
+	 *
+	 * @param htmlReport the html report path
+	 * @return the assets directory path
+	 */
+	public static String getReportAssetsPath(final String htmlReport) {
+		final File file = new File(htmlReport);
+		return file.getParent() + "/" + FilenameUtils.removeExtension(file.getName()) + "_files";
+	}
+
 	private static void addIfNotEmpty(final List<String> paths, final String str) {
 		if (StringUtils.isNotEmpty(str)) {
 			paths.add(str);
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import hudson.FilePath;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Stores the assets of the html reports (images, styles, scripts) once per job, by hash of their content. Most assets
+ * are identical from one build to the next: a build only keeps a manifest giving the hash of each of its assets and
+ * only the new contents are transferred from the agent.
+ */
+public final class ReportAssetStore {
+
+	/**
+	 * The directory of the store, in the directory of the job.
+	 */
+	public static final String STORE_DIR_NAME = "neoload-report-assets";
+
+	/**
+	 * The manifest of the assets of a build, in the directory of the build.
+	 */
+	public static final String MANIFEST_FILE_NAME = "neoload-report-assets.json";
+
+	/**
+	 * A hexadecimal SHA-256, the hashes are sent by the agent and become paths of the master.
+	 */
+	private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+	/**
+	 * Log various messages.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(ReportAssetStore.class.getName());
+
+	/**
+	 * One lock per store, the assets are added and collected by different builds of the job.
+	 */
+	private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+	private ReportAssetStore() {
+	}
+
+	/**
+	 * Gets the store of a job.
+	 *
+	 * @param job the job
+	 * @return the store directory
+	 */
+	public static File getStoreDir(final Job<?, ?> job) {
+		return new File(job.getRootDir(), STORE_DIR_NAME);
+	}
+
+	/**
+	 * Gets the stored file of a content.
+	 *
+	 * @param storeDir the store directory
+	 * @param hash     the hash of the content
+	 * @return the stored file
+	 */
+	static File getStoredFile(final File storeDir, final String hash) {
+		return new File(new File(storeDir, hash.substring(0, 2)), hash);
+	}
+
+	/**
+	 * Test if a value is a hash of the store.
+	 *
+	 * @param hash the value
+	 * @return true if the value is a lowercase hexadecimal SHA-256
+	 */
+	static boolean isHash(final String hash) {
+		return hash != null && HASH_PATTERN.matcher(hash).matches();
+	}
+
+	private static Object getLock(final File storeDir) {
+		final String key = storeDir.getAbsolutePath();
+		final Object lock = new Object();
+		final Object previous = LOCKS.putIfAbsent(key, lock);
+		return previous == null ? lock : previous;
+	}
+
+	/**
+	 * Adds the assets of the report of a build to the store of its job and writes the manifest of the build. The files
+	 * are hashed on the agent, only the contents missing from the store are transferred.
+	 *
+	 * @param run       the build
+	 * @param assetsDir the assets directory of the html report, next to the report
+	 * @param listener  the listener
+	 * @return the number of transferred files
+	 * @throws IOException          the io exception
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public static int archive(final Run<?, ?> run, final FilePath assetsDir, final TaskListener listener)
+			throws IOException, InterruptedException {
+		return archive(run, assetsDir, assetsDir.act(new HashReportAssetsCallable()), listener);
+	}
+
+	/**
+	 * Adds the assets of the report of a build to the store of its job. The hashes computed by the agent aren't
+	 * trusted: they must be well formed and a transferred file is only stored if the master finds the same hash.
+	 */
+	static int archive(final Run<?, ?> run, final FilePath assetsDir, final Map<String, String> hashes,
+					   final TaskListener listener) throws IOException, InterruptedException {
+		if (hashes.isEmpty()) {
+			return 0;
+		}
+		final File storeDir = getStoreDir(run.getParent());
+		final String prefix = assetsDir.getName() + "/";
+		final Map<String, String> manifest = new TreeMap<>();
+		int transferred = 0;
+		synchronized (getLock(storeDir)) {
+			for (Map.Entry<String, String> entry : hashes.entrySet()) {
+				if (!isHash(entry.getValue())) {
+					throw new IOException("Invalid hash of the report asset " + entry.getKey() + ": " + entry.getValue());
+				}
+				final File stored = getStoredFile(storeDir, entry.getValue());
+				if (!stored.isFile()) {
+					final File parent = stored.getParentFile();
+					if (!parent.isDirectory() && !parent.mkdirs()) {
+						throw new IOException("Unable to create " + parent.getAbsolutePath());
+					}
+					final File tmp = new File(parent, stored.getName() + ".tmp");
+					assetsDir.child(entry.getKey()).copyTo(new FilePath(tmp));
+					if (!entry.getValue().equals(HashReportAssetsCallable.hash(tmp))) {
+						Files.deleteIfExists(tmp.toPath());
+						throw new IOException("The report asset " + entry.getKey() + " doesn't match its hash " + entry.getValue());
+					}
+					Files.move(tmp.toPath(), stored.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					transferred++;
+				}
+				manifest.put(prefix + entry.getKey(), entry.getValue());
+			}
+			writeManifest(run.getRootDir(), manifest);
+		}
+		listener.getLogger().println("Stored " + hashes.size() + " report assets, " + transferred + " new.");
+		return transferred;
+	}
+
+	/**
+	 * Read the manifest of a build.
+	 *
+	 * @param buildDir the directory of the build
+	 * @return the hash of each asset by path relative to the html report, empty if the build has no manifest
+	 */
+	public static Map<String, String> readManifest(final File buildDir) {
+		final File file = new File(buildDir, MANIFEST_FILE_NAME);
+		if (!file.isFile()) {
+			return Collections.emptyMap();
+		}
+		try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			final Map<String, String> manifest = new Gson().fromJson(reader, new TypeToken<TreeMap<String, String>>() {
+			}.getType());
+			return manifest == null ? Collections.<String, String>emptyMap() : manifest;
+		} catch (IOException | JsonParseException e) {
+			LOGGER.log(Level.WARNING, "Ignoring unreadable NeoLoad report manifest " + file.getAbsolutePath(), e);
+			return Collections.emptyMap();
+		}
+	}
+
+	private static void writeManifest(final File buildDir, final Map<String, String> manifest) throws IOException {
+		final File file = new File(buildDir, MANIFEST_FILE_NAME);
+		final File tmp = new File(buildDir, MANIFEST_FILE_NAME + ".tmp");
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+			new Gson().toJson(manifest, writer);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Find the stored file of an asset of a build.
+	 *
+	 * @param job      the job of the build
+	 * @param manifest the manifest of the build
+	 * @param path     the path of the asset relative to the html report
+	 * @return the stored file or null if the build doesn't have this asset
+	 */
+	public static File findAsset(final Job<?, ?> job, final Map<String, String> manifest, final String path) {
+		final String hash = manifest.get(path);
+		if (!isHash(hash)) {
+			return null;
+		}
+		final File stored = getStoredFile(getStoreDir(job), hash);
+		return stored.isFile() ? stored : null;
+	}
+
+	/**
+	 * Removes the stored contents that aren't referenced by a build of the job anymore.
+	 *
+	 * @param job             the job
+	 * @param deletedBuildDir the directory of a build being deleted, its manifest is ignored, may be null
+	 * @return the number of removed files
+	 */
+	public static int collectGarbage(final Job<?, ?> job, final File deletedBuildDir) {
+		final File storeDir = getStoreDir(job);
+		if (!storeDir.isDirectory()) {
+			return 0;
+		}
+		int removed = 0;
+		synchronized (getLock(storeDir)) {
+			final Set<String> referenced = new HashSet<>();
+			final File[] buildDirs = job.getBuildDir().listFiles();
+			if (buildDirs == null) {
+				return 0;
+			}
+			for (File buildDir : buildDirs) {
+				if (buildDir.isDirectory() && !buildDir.equals(deletedBuildDir)) {
+					referenced.addAll(readManifest(buildDir).values());
+				}
+			}
+			final File[] prefixDirs = storeDir.listFiles();
+			if (prefixDirs == null) {
+				return 0;
+			}
+			for (File prefixDir : prefixDirs) {
+				final File[] storedFiles = prefixDir.listFiles();
+				if (storedFiles == null) {
+					continue;
+				}
+				for (File stored : storedFiles) {
+					if (!referenced.contains(stored.getName())) {
+						if (stored.delete()) {
+							removed++;
+						} else {
+							LOGGER.log(Level.WARNING, "Unable to delete the NeoLoad report asset " + stored.getAbsolutePath());
+						}
+					}
+				}
+				final String[] remaining = prefixDir.list();
+				if (remaining != null && remaining.length == 0 && !prefixDir.delete()) {
+					LOGGER.log(Level.FINE, "Unable to delete " + prefixDir.getAbsolutePath());
+				}
+			}
+		}
+		return removed;
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The reports can be archived compressed with gzip, they are then read as a stream without being decompressed on disk.
+ */
+public final class ReportCompression {
+
+	/**
+	 * The extension added to the name of a compressed report.
+	 */
+	public static final String GZIP_EXTENSION = ".gz";
+
+	private ReportCompression() {
+	}
+
+	/**
+	 * Is compressed boolean.
+	 *
+	 * @param name the name or path of a report
+	 * @return true if the report is compressed
+	 */
+	public static boolean isCompressed(final String name) {
+		return name.endsWith(GZIP_EXTENSION);
+	}
+
+	/**
+	 * Gets the name of the report once decompressed.
+	 *
+	 * @param name the name or path of a report
+	 * @return the name without the compression extension
+	 */
+	public static String getUncompressedName(final String name) {
+		return isCompressed(name) ? name.substring(0, name.length() - GZIP_EXTENSION.length()) : name;
+	}
+
+	/**
+	 * Open a report, a compressed report is decompressed while it is read.
+	 *
+	 * @param report the report
+	 * @return the buffered content of the report
+	 * @throws IOException the io exception
+	 */
+	public static InputStream openReport(final File report) throws IOException {
+		final InputStream inputStream = new BufferedInputStream(new FileInputStream(report));
+		if (!isCompressed(report.getName())) {
+			return inputStream;
+		}
+		try {
+			return new BufferedInputStream(new GZIPInputStream(inputStream));
+		} catch (IOException e) {
+			inputStream.close();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The statistics of a NeoLoad report, stored next to the build so that the trends never parse an archived report twice.
+ * <p>
+ * Every statistic-item and statistic element of the report is kept with the attributes used by the trend graphs, along
+ * with the element, name and type of its ancestors. This pruned tree is enough to evaluate the x paths of the default
+ * and custom graphs without the report.
+ */
+public final class ReportMetrics implements Serializable {
+
+	/**
+	 * The name of the file in the build directory.
+	 */
+	public static final String FILE_NAME = "neoload-metrics.json.gz";
+
+	/**
+	 * The prefix of the files holding the statistics of the shards of a distributed test, in the build directory.
+	 */
+	public static final String SHARD_FILE_PREFIX = "neoload-metrics-shard-";
+
+	/**
+	 * The prefix of the files holding the statistics of the scenarios published as trend series, in the build directory.
+	 */
+	public static final String SERIES_FILE_PREFIX = "neoload-metrics-series-";
+
+	/**
+	 * The elements holding statistics.
+	 */
+	static final List<String> STATISTIC_ELEMENTS = Arrays.asList("statistic-item", "statistic");
+
+	/**
+	 * The attributes kept for a statistic element.
+	 */
+	static final List<String> STATISTIC_ATTRIBUTES = Arrays.asList("avg", "value", "percentile2", "percentile3", "error_rate", "hits", "errors", "min", "max");
+
+	/**
+	 * The attributes counting the hits of an element, they are summed when the shards are merged.
+	 */
+	private static final List<String> COUNT_ATTRIBUTES = Arrays.asList("hits", "errors");
+
+	/**
+	 * The summary statistic holding the number of hits of a report.
+	 */
+	private static final String TOTAL_HITS = "total_hits";
+
+	/**
+	 * Generated.
+	 */
+	private static final long serialVersionUID = -1906421284522962312L;
+
+	private static final Logger LOGGER = Logger.getLogger(ReportMetrics.class.getName());
+
+	private static final int FORMAT_VERSION = 3;
+
+	private static final List<String> KEY_ATTRIBUTES = Arrays.asList("name", "type");
+
+	private int version = FORMAT_VERSION;
+
+	private final List<Node> nodes = new ArrayList<>();
+
+	/**
+	 * An element of the report, in document order.
+	 */
+	static final class Node implements Serializable {
+
+		private static final long serialVersionUID = 4405470468963312165L;
+
+		private final int parent;
+		private final String element;
+		private final String name;
+		private final String type;
+		private final Map<String, String> values;
+
+		Node(final int parent, final String element, final String name, final String type, final Map<String, String> values) {
+			this.parent = parent;
+			this.element = element;
+			this.name = name;
+			this.type = type;
+			this.values = values;
+		}
+
+		private String get(final String attribute) {
+			switch (attribute) {
+				case "name":
+					return name;
+				case "type":
+					return type;
+				default:
+					return values == null ? null : values.get(attribute);
+			}
+		}
+	}
+
+	/**
+	 * Add a node.
+	 *
+	 * @param parent  the index of the parent node or -1 for the root element
+	 * @param element the element name
+	 * @param name    the name attribute
+	 * @param type    the type attribute
+	 * @param values  the statistics or null for an ancestor of a statistic element
+	 * @return the index of the node
+	 */
+	int addNode(final int parent, final String element, final String name, final String type, final Map<String, String> values) {
+		nodes.add(new Node(parent, element, name, type, values));
+		return nodes.size() - 1;
+	}
+
+	/**
+	 * Gets the name of the file holding the statistics of a shard.
+	 *
+	 * @param shardIndex the index of the shard
+	 * @return the file name
+	 */
+	public static String getShardFileName(final int shardIndex) {
+		return SHARD_FILE_PREFIX + shardIndex + ".json.gz";
+	}
+
+	/**
+	 * Gets the name of the file holding the statistics of a trend series.
+	 *
+	 * @param series the name of the series
+	 * @return the file name
+	 */
+	public static String getSeriesFileName(final String series) {
+		return SERIES_FILE_PREFIX + series.replaceAll("[^A-Za-z0-9._-]", "_") + ".json.gz";
+	}
+
+	/**
+	 * Merge the statistics of the shards of a distributed test. The elements are matched by their path in the report.
+	 * The load is split between the shards, so the counts, the totals and the rates of the shards are summed, the
+	 * minimum and the maximum are those of all the shards. The times, percentiles and percentages are averaged,
+	 * weighted by the hits of the element in each shard, or by the total hits of the shard for the summary statistics.
+	 * The percentiles of the whole test can't be computed from those of the shards, their weighted mean is only an
+	 * approximation. The values that aren't numbers, such as "&lt;0.01", are ignored.
+	 *
+	 * @param shards the statistics of the shards
+	 * @return the merged statistics
+	 */
+	public static ReportMetrics merge(final Collection<ReportMetrics> shards) {
+		final MergedNode root = new MergedNode(null, null, null);
+		for (ReportMetrics shard : shards) {
+			final double totalHits = shard.getTotalHits();
+			final MergedNode[] merged = new MergedNode[shard.nodes.size()];
+			for (int i = 0; i < shard.nodes.size(); i++) {
+				final Node node = shard.nodes.get(i);
+				final MergedNode parent = node.parent < 0 ? root : merged[node.parent];
+				merged[i] = parent.getChild(node);
+				merged[i].add(node.values, totalHits);
+			}
+		}
+		final ReportMetrics result = new ReportMetrics();
+		root.addChildren(result, -1);
+		return result;
+	}
+
+	/**
+	 * Gets the total hits of the report, the weight of the summary statistics of a shard.
+	 *
+	 * @return the value of the total_hits statistic, NaN if it's unknown
+	 */
+	private double getTotalHits() {
+		for (Node node : nodes) {
+			if ("statistic".equals(node.element) && TOTAL_HITS.equals(node.name)) {
+				return parse(node.get("value"));
+			}
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Test if an attribute grows with the load: the counts of the elements and the totals and rates of the summary.
+	 */
+	private static boolean isSummed(final String name, final String attribute) {
+		if (COUNT_ATTRIBUTES.contains(attribute)) {
+			return true;
+		}
+		if (!"value".equals(attribute) || name == null) {
+			return false;
+		}
+		return (name.startsWith("total_") && !name.endsWith("_percentage")) || name.endsWith("/s") || name.endsWith("_throughput");
+	}
+
+	private static double parse(final String value) {
+		if (value == null) {
+			return Double.NaN;
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * An element of the merged statistics, its children are kept so that the merged nodes are in document order.
+	 */
+	private static final class MergedNode {
+		private final String element;
+		private final String name;
+		private final String type;
+		private final Map<List<String>, MergedNode> children = new LinkedHashMap<>();
+		private Map<String, List<String>> values = null;
+		private Map<String, List<Double>> weights = null;
+
+		MergedNode(final String element, final String name, final String type) {
+			this.element = element;
+			this.name = name;
+			this.type = type;
+		}
+
+		MergedNode getChild(final Node node) {
+			final List<String> key = Arrays.asList(node.element, node.name, node.type);
+			MergedNode child = children.get(key);
+			if (child == null) {
+				child = new MergedNode(node.element, node.name, node.type);
+				children.put(key, child);
+			}
+			return child;
+		}
+
+		void add(final Map<String, String> nodeValues, final double totalHits) {
+			if (nodeValues == null) {
+				return;
+			}
+			if (values == null) {
+				values = new LinkedHashMap<>();
+				weights = new LinkedHashMap<>();
+			}
+			// The element's own hits when it has them, the hits of the shard for the summary statistics.
+			final double hits = parse(nodeValues.get("hits"));
+			final double weight = !Double.isNaN(hits) ? hits : totalHits;
+			for (Map.Entry<String, String> entry : nodeValues.entrySet()) {
+				List<String> attributeValues = values.get(entry.getKey());
+				if (attributeValues == null) {
+					attributeValues = new ArrayList<>();
+					values.put(entry.getKey(), attributeValues);
+					weights.put(entry.getKey(), new ArrayList<Double>());
+				}
+				attributeValues.add(entry.getValue());
+				weights.get(entry.getKey()).add(weight);
+			}
+		}
+
+		void addChildren(final ReportMetrics metrics, final int index) {
+			for (MergedNode child : children.values()) {
+				child.addChildren(metrics, metrics.addNode(index, child.element, child.name, child.type, child.getMergedValues()));
+			}
+		}
+
+		private Map<String, String> getMergedValues() {
+			if (values == null) {
+				return null;
+			}
+			final Map<String, String> merged = new LinkedHashMap<>();
+			for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+				final List<String> attributeValues = entry.getValue();
+				final String value;
+				if (attributeValues.size() == 1) {
+					value = attributeValues.get(0);
+				} else if (isSummed(name, entry.getKey())) {
+					value = sum(attributeValues);
+				} else if ("min".equals(entry.getKey()) || "max".equals(entry.getKey())) {
+					value = extremum(attributeValues, "max".equals(entry.getKey()));
+				} else {
+					value = weightedMean(attributeValues, weights.get(entry.getKey()));
+				}
+				merged.put(entry.getKey(), value);
+			}
+			return merged;
+		}
+
+		/**
+		 * The sum of the values that are numbers, the first value if none is.
+		 */
+		private static String sum(final List<String> values) {
+			double sum = 0;
+			int count = 0;
+			for (String value : values) {
+				final double number = parse(value);
+				if (!Double.isNaN(number)) {
+					sum += number;
+					count++;
+				}
+			}
+			return count == 0 ? values.get(0) : Float.toString((float) sum);
+		}
+
+		/**
+		 * The lowest or the highest of the values that are numbers, the first value if none is.
+		 */
+		private static String extremum(final List<String> values, final boolean highest) {
+			double extremum = Double.NaN;
+			for (String value : values) {
+				final double number = parse(value);
+				if (!Double.isNaN(number)) {
+					extremum = Double.isNaN(extremum) ? number : highest ? Math.max(extremum, number) : Math.min(extremum, number);
+				}
+			}
+			return Double.isNaN(extremum) ? values.get(0) : Float.toString((float) extremum);
+		}
+
+		/**
+		 * The mean of the values that are numbers weighted by the hits, the plain mean when a weight is unknown, the first
+		 * value if none is a number.
+		 */
+		private static String weightedMean(final List<String> values, final List<Double> valueWeights) {
+			double sum = 0;
+			int count = 0;
+			double weightedSum = 0;
+			double totalWeight = 0;
+			boolean weighted = true;
+			for (int i = 0; i < values.size(); i++) {
+				final double number = parse(values.get(i));
+				if (Double.isNaN(number)) {
+					continue;
+				}
+				sum += number;
+				count++;
+				final double weight = valueWeights.get(i);
+				if (Double.isNaN(weight) || weight < 0) {
+					weighted = false;
+				} else {
+					weightedSum += number * weight;
+					totalWeight += weight;
+				}
+			}
+			if (count == 0) {
+				return values.get(0);
+			}
+			if (weighted && totalWeight > 0) {
+				return Float.toString((float) (weightedSum / totalWeight));
+			}
+			return Float.toString((float) (sum / count));
+		}
+	}
+
+	/**
+	 * Gets the number of elements stored.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * Test if an expression can be evaluated from the stored statistics.
+	 *
+	 * @param xPath the x path
+	 * @return true if the expression selects a statistic attribute and only tests name and type attributes.
+	 */
+	public static boolean isAnswerable(final String xPath) {
+		return isAnswerable(ReportPath.parse(xPath));
+	}
+
+	private static boolean isAnswerable(final ReportPath path) {
+		if (path == null || !STATISTIC_ATTRIBUTES.contains(path.getAttribute())) {
+			return false;
+		}
+		for (int i = 0; i < path.getDepth(); i++) {
+			if (!KEY_ATTRIBUTES.containsAll(Arrays.asList(path.getPredicateNames(i)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Extract the values of the expressions.
+	 *
+	 * @param xPaths the x paths
+	 * @return the value of each answerable expression, null when not found. Other expressions are not in the map and
+	 * must be evaluated on the report.
+	 */
+	public Map<String, Float> extract(final Collection<String> xPaths) {
+		final List<ReportPath> paths = new ArrayList<>();
+		for (String xPath : new LinkedHashSet<>(xPaths)) {
+			final ReportPath path = ReportPath.parse(xPath);
+			if (isAnswerable(path)) {
+				paths.add(path);
+			}
+		}
+		if (paths.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		// Replay the stored elements as the events of a streamed report.
+		final ReportPathMatcher matcher = new ReportPathMatcher(paths);
+		final int[] openNodes = new int[nodes.size() + 1];
+		int depth = 0;
+		for (int i = 0; i < nodes.size() && !matcher.isComplete(); i++) {
+			final Node node = nodes.get(i);
+			while (depth > 0 && openNodes[depth - 1] != node.parent) {
+				matcher.endElement();
+				depth--;
+			}
+			matcher.startElement(node.element, new ReportPathMatcher.Attributes() {
+				@Override
+				public String get(final String name) {
+					return node.get(name);
+				}
+			});
+			openNodes[depth++] = i;
+		}
+		return matcher.getValues();
+	}
+
+	/**
+	 * Read the statistics stored in a file.
+	 *
+	 * @param file the file
+	 * @return the statistics or null if the file doesn't exist or can't be read.
+	 */
+	public static ReportMetrics read(final File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8)) {
+			final ReportMetrics metrics = new Gson().fromJson(reader, ReportMetrics.class);
+			if (metrics == null || metrics.version != FORMAT_VERSION) {
+				return null;
+			}
+			return metrics;
+		} catch (IOException | JsonParseException e) {
+			LOGGER.log(Level.WARNING, "Ignoring unreadable NeoLoad statistics " + file.getAbsolutePath(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Write the statistics to a file. The file is replaced atomically so that concurrent readers never see a partial file.
+	 *
+	 * @param file the file
+	 * @throws IOException the io exception
+	 */
+	public void write(final File file) throws IOException {
+		// A temporary file of its own in the same folder, concurrent writers don't overwrite each other's file.
+		final File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+		try {
+			try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmp)), StandardCharsets.UTF_8)) {
+				new Gson().toJson(this, writer);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+	}
+
+	/**
+	 * Gets the statistic attributes of an element, only the attributes used by the trends are kept.
+	 *
+	 * @param attributes the attributes of the element
+	 * @return the statistics
+	 */
+	static Map<String, String> statisticValues(final ReportPathMatcher.Attributes attributes) {
+		final Map<String, String> values = new LinkedHashMap<>();
+		for (String attribute : STATISTIC_ATTRIBUTES) {
+			final String value = attributes.get(attribute);
+			if (value != null) {
+				values.put(attribute, value);
+			}
+		}
+		return values;
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An absolute location path of the restricted form used by the trend graphs, for example
+ * <code>/report/virtual-users/statistic-item[@name="UserPath"]/@avg</code>.
+ * <p>
+ * Only child steps with optional attribute equality predicates and a final attribute step are supported. Such a path can
+ * be evaluated while streaming the report instead of loading it into a DOM.
+ */
+final class ReportPath {
+
+	private final String expression;
+	private final String[] elements;
+	private final String[][] predicateNames;
+	private final String[][] predicateValues;
+	private final String attribute;
+
+	private ReportPath(final String expression, final List<String> elements, final List<List<String[]>> predicates, final String attribute) {
+		this.expression = expression;
+		this.elements = elements.toArray(new String[elements.size()]);
+		this.predicateNames = new String[elements.size()][];
+		this.predicateValues = new String[elements.size()][];
+		for (int i = 0; i < elements.size(); i++) {
+			final List<String[]> stepPredicates = predicates.get(i);
+			predicateNames[i] = new String[stepPredicates.size()];
+			predicateValues[i] = new String[stepPredicates.size()];
+			for (int j = 0; j < stepPredicates.size(); j++) {
+				predicateNames[i][j] = stepPredicates.get(j)[0];
+				predicateValues[i][j] = stepPredicates.get(j)[1];
+			}
+		}
+		this.attribute = attribute;
+	}
+
+	/**
+	 * Parse an XPath expression.
+	 *
+	 * @param expression the expression
+	 * @return the parsed path or null if the expression uses XPath features that are not supported.
+	 */
+	static ReportPath parse(final String expression) {
+		if (expression == null || !expression.startsWith("/")) {
+			return null;
+		}
+		final List<String> elements = new ArrayList<>();
+		final List<List<String[]>> predicates = new ArrayList<>();
+		final int length = expression.length();
+		int pos = 0;
+		while (pos < length) {
+			if (expression.charAt(pos) != '/') {
+				return null;
+			}
+			pos++;
+			if (pos < length && expression.charAt(pos) == '@') {
+				final int end = readName(expression, pos + 1);
+				if (end == pos + 1 || end != length || elements.isEmpty()) {
+					return null;
+				}
+				return new ReportPath(expression, elements, predicates, expression.substring(pos + 1, end));
+			}
+			final int nameEnd = readName(expression, pos);
+			if (nameEnd == pos) {
+				// "//", "*", "." and the like.
+				return null;
+			}
+			elements.add(expression.substring(pos, nameEnd));
+			pos = nameEnd;
+			final List<String[]> stepPredicates = new ArrayList<>();
+			while (pos < length && expression.charAt(pos) == '[') {
+				// [@name='value'] or [@name="value"]
+				if (pos + 1 >= length || expression.charAt(pos + 1) != '@') {
+					return null;
+				}
+				final int attrEnd = readName(expression, pos + 2);
+				if (attrEnd == pos + 2 || attrEnd + 1 >= length || expression.charAt(attrEnd) != '=') {
+					return null;
+				}
+				final char quote = expression.charAt(attrEnd + 1);
+				if (quote != '\'' && quote != '"') {
+					return null;
+				}
+				final int valueEnd = expression.indexOf(quote, attrEnd + 2);
+				if (valueEnd < 0 || valueEnd + 1 >= length || expression.charAt(valueEnd + 1) != ']') {
+					return null;
+				}
+				stepPredicates.add(new String[]{
+						expression.substring(pos + 2, attrEnd),
+						expression.substring(attrEnd + 2, valueEnd)});
+				pos = valueEnd + 2;
+			}
+			predicates.add(stepPredicates);
+		}
+		// a path that selects elements, not an attribute.
+		return null;
+	}
+
+	private static int readName(final String expression, final int start) {
+		int pos = start;
+		while (pos < expression.length()) {
+			final char c = expression.charAt(pos);
+			if (Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.') {
+				pos++;
+			} else {
+				break;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * Gets expression.
+	 *
+	 * @return the original XPath expression
+	 */
+	String getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Gets the number of element steps.
+	 *
+	 * @return the depth of the selected element
+	 */
+	int getDepth() {
+		return elements.length;
+	}
+
+	/**
+	 * Gets attribute.
+	 *
+	 * @return the selected attribute
+	 */
+	String getAttribute() {
+		return attribute;
+	}
+
+	/**
+	 * Gets the names of the attributes tested by the predicates of a step.
+	 *
+	 * @param step the step index
+	 * @return the attribute names
+	 */
+	String[] getPredicateNames(final int step) {
+		return predicateNames[step];
+	}
+
+	/**
+	 * Test if an element matches a step.
+	 *
+	 * @param step       the step index
+	 * @param name       the element name
+	 * @param attributes the element attributes
+	 * @return true if the element matches the step
+	 */
+	boolean matches(final int step, final String name, final ReportPathMatcher.Attributes attributes) {
+		if (!elements[step].equals(name)) {
+			return false;
+		}
+		for (int i = 0; i < predicateNames[step].length; i++) {
+			if (!predicateValues[step][i].equals(attributes.get(predicateNames[step][i]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a set of {@link ReportPath} against a stream of start and end element events.
+ * <p>
+ * Only the depth reached by each path is kept, so the memory used does not depend on the size of the report. Like
+ * {@link XMLUtilities#findFirstByExpression(String, org.w3c.dom.Node)}, the first matching attribute in document order
+ * is retained.
+ */
+final class ReportPathMatcher {
+
+	/**
+	 * Attributes of the current element.
+	 */
+	interface Attributes {
+		/**
+		 * Get an attribute value.
+		 *
+		 * @param name the attribute name
+		 * @return the value or null if the element doesn't have this attribute
+		 */
+		String get(String name);
+	}
+
+	private final ReportPath[] paths;
+	private final int[] matchedDepth;
+	private final String[] values;
+	private final boolean[] resolved;
+	private int remaining;
+	private int depth = 0;
+
+	/**
+	 * Instantiates a new matcher.
+	 *
+	 * @param paths the paths to evaluate
+	 */
+	ReportPathMatcher(final List<ReportPath> paths) {
+		this.paths = paths.toArray(new ReportPath[paths.size()]);
+		this.matchedDepth = new int[this.paths.length];
+		this.values = new String[this.paths.length];
+		this.resolved = new boolean[this.paths.length];
+		this.remaining = this.paths.length;
+	}
+
+	/**
+	 * Start element.
+	 *
+	 * @param name       the element name
+	 * @param attributes the element attributes
+	 */
+	void startElement(final String name, final Attributes attributes) {
+		depth++;
+		for (int i = 0; i < paths.length; i++) {
+			final ReportPath path = paths[i];
+			if (resolved[i] || matchedDepth[i] != depth - 1 || depth > path.getDepth() || !path.matches(depth - 1, name, attributes)) {
+				continue;
+			}
+			if (depth == path.getDepth()) {
+				final String value = attributes.get(path.getAttribute());
+				if (value != null) {
+					values[i] = value;
+					resolved[i] = true;
+					remaining--;
+				}
+			} else {
+				matchedDepth[i] = depth;
+			}
+		}
+	}
+
+	/**
+	 * End element.
+	 */
+	void endElement() {
+		for (int i = 0; i < paths.length; i++) {
+			if (matchedDepth[i] >= depth) {
+				matchedDepth[i] = depth - 1;
+			}
+		}
+		depth--;
+	}
+
+	/**
+	 * Is complete boolean.
+	 *
+	 * @return true if every path has been resolved, the rest of the document can be skipped.
+	 */
+	boolean isComplete() {
+		return remaining == 0;
+	}
+
+	/**
+	 * Gets the values converted as NeoLoad numbers.
+	 *
+	 * @return the value of each expression, null when it was not found or is not a number.
+	 */
+	Map<String, Float> getValues() {
+		final Map<String, Float> result = new LinkedHashMap<>();
+		for (int i = 0; i < paths.length; i++) {
+			result.put(paths[i].getExpression(), values[i] == null ? null : PluginUtils.extractNeoLoadNumber(values[i]));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.neoload.integration.NeoGlobalConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The threads reading the reports of the builds while the trends are built. The pool is shared by every job, its size
+ * is set in the global configuration and its threads stop when they are idle.
+ */
+final class ReportReaderPool {
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private static ThreadPoolExecutor executor = null;
+
+	private ReportReaderPool() {
+		throw new IllegalAccessError();
+	}
+
+	/**
+	 * Gets the number of threads reading reports.
+	 *
+	 * @return the configured number of threads, or the number of processors when it isn't configured.
+	 */
+	static int getThreads() {
+		final Jenkins jenkins = Jenkins.getInstance();
+		final NeoGlobalConfig.DescriptorImpl globalConfig = jenkins == null ? null : jenkins.getDescriptorByType(NeoGlobalConfig.DescriptorImpl.class);
+		final int configured = globalConfig == null ? 0 : globalConfig.getReportReaderThreads();
+		return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Gets the executor, it is resized when the number of threads changed in the global configuration.
+	 *
+	 * @param threads the number of threads
+	 * @return the executor
+	 */
+	static synchronized ThreadPoolExecutor getExecutor(final int threads) {
+		if (executor == null) {
+			executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(),
+					new NamingThreadFactory(new DaemonThreadFactory(), "NeoLoad report reader"));
+			executor.allowCoreThreadTimeOut(true);
+		} else if (executor.getMaximumPoolSize() != threads) {
+			// The order matters, the core size can't exceed the maximum size.
+			if (threads > executor.getMaximumPoolSize()) {
+				executor.setMaximumPoolSize(threads);
+				executor.setCorePoolSize(threads);
+			} else {
+				executor.setCorePoolSize(threads);
+				executor.setMaximumPoolSize(threads);
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Run the tasks and wait for their results. The tasks run in the calling thread when the pool has a single thread or
+	 * there is a single task.
+	 *
+	 * @param tasks the tasks
+	 * @param <T>   the type of the results
+	 * @return the results, in the order of the tasks
+	 * @throws InterruptedException the interrupted exception
+	 * @throws ExecutionException   if a task threw an exception
+	 */
+	static <T> List<T> invokeAll(final List<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+		return invokeAll(tasks, getThreads());
+	}
+
+	/**
+	 * Run the tasks on a number of threads and wait for their results.
+	 *
+	 * @param tasks   the tasks
+	 * @param threads the number of threads
+	 * @param <T>     the type of the results
+	 * @return the results, in the order of the tasks
+	 * @throws InterruptedException the interrupted exception
+	 * @throws ExecutionException   if a task threw an exception
+	 */
+	static <T> List<T> invokeAll(final List<? extends Callable<T>> tasks, final int threads) throws InterruptedException, ExecutionException {
+		final List<T> results = new ArrayList<>(tasks.size());
+		if (threads <= 1 || tasks.size() <= 1) {
+			for (Callable<T> task : tasks) {
+				try {
+					results.add(task.call());
+				} catch (Exception e) {
+					throw new ExecutionException(e);
+				}
+			}
+			return results;
+		}
+		for (Future<T> future : getExecutor(threads).invokeAll(tasks)) {
+			results.add(future.get());
+		}
+		return results;
+	}
+}
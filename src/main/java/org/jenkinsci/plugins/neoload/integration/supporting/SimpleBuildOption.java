@@ -49,6 +49,8 @@ public class SimpleBuildOption extends JobProperty implements NeoLoadPluginOptio
 
 	private final boolean scanAll;
 
+	private final boolean svgTrends;
+
 
 	public static SimpleBuildOption fromNPO(NeoLoadPluginOptions npo) {
 		if (npo instanceof SimpleBuildOption) {
@@ -65,14 +67,16 @@ public class SimpleBuildOption extends JobProperty implements NeoLoadPluginOptio
 	 * @param showTrendErrorRate       the show trend error rate
 	 * @param graphOptionsInfos        the graph options infos
 	 * @param maxTrends                the max trends
+	 * @param svgTrends                true to draw the trend charts as svg
 	 */
-	public SimpleBuildOption(boolean showTrendAverageResponse, boolean showTrendErrorRate, List<GraphOptionsInfo> graphOptionsInfos, int maxTrends, boolean scanAll) {
+	public SimpleBuildOption(boolean showTrendAverageResponse, boolean showTrendErrorRate, List<GraphOptionsInfo> graphOptionsInfos, int maxTrends, boolean scanAll, boolean svgTrends) {
 		this.showTrendAverageResponse = showTrendAverageResponse;
 		this.showTrendErrorRate = showTrendErrorRate;
 
 		this.graphOptionsInfos = graphOptionsInfos;
 		this.maxTrends = maxTrends;
 		this.scanAll = scanAll;
+		this.svgTrends = svgTrends;
 	}
 
 
@@ -100,6 +104,12 @@ public class SimpleBuildOption extends JobProperty implements NeoLoadPluginOptio
 	public boolean isScanAllBuilds() {
 		return scanAll;
 	}
+
+	@Override
+	public boolean isSvgTrends() {
+		return svgTrends;
+	}
+
 	@Extension
 	public static class DescriptorImpl extends JobPropertyDescriptor {
 		public String getDisplayName() { return null; }
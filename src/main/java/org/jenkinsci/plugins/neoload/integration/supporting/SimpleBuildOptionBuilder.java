@@ -36,6 +36,7 @@ public class SimpleBuildOptionBuilder {
 	private List<GraphOptionsInfo> graphOptionsInfos;
 	private int maxTrends;
 	private boolean scanAll;
+	private boolean svgTrends;
 
 
 	public SimpleBuildOptionBuilder setShowTrendAverageResponse(final boolean showTrendAverageResponse) {
@@ -64,6 +65,11 @@ public class SimpleBuildOptionBuilder {
 		return this;
 	}
 
+	public SimpleBuildOptionBuilder setSvgTrends(final boolean svgTrends) {
+		this.svgTrends = svgTrends;
+		return this;
+	}
+
 	public static SimpleBuildOptionBuilder fromNPO(final NeoLoadPluginOptions neoLoadPluginOptions) {
 		final SimpleBuildOptionBuilder simpleBuildOptionBuilder = new SimpleBuildOptionBuilder();
 
@@ -73,13 +79,14 @@ public class SimpleBuildOptionBuilder {
 					.setScanAll(neoLoadPluginOptions.isScanAllBuilds())
 					.setShowTrendAverageResponse(neoLoadPluginOptions.isShowTrendAverageResponse())
 					.setShowTrendErrorRate(neoLoadPluginOptions.isShowTrendErrorRate())
-					.setMaxTrends(neoLoadPluginOptions.getMaxTrends());
+					.setMaxTrends(neoLoadPluginOptions.getMaxTrends())
+					.setSvgTrends(neoLoadPluginOptions.isSvgTrends());
 
 		}
 		return simpleBuildOptionBuilder;
 	}
 
 	public SimpleBuildOption build() {
-		return new SimpleBuildOption(showTrendAverageResponse, showTrendErrorRate, graphOptionsInfos, maxTrends, scanAll);
+		return new SimpleBuildOption(showTrendAverageResponse, showTrendErrorRate, graphOptionsInfos, maxTrends, scanAll, svgTrends);
 	}
 }
\ No newline at end of file
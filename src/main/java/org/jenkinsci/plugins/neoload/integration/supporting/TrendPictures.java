@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * The trend pictures of a job. The charts are rendered on demand from the trend store in the charts folder, see
+ * {@link NeoloadGraphsStatistics#getChart(File, int)}.
+ * <p>
+ * The previous versions wrote every picture at each rebuild in a new generation folder, the generation was then
+ * published by replacing atomically the file naming the current generation. These pictures are still shown until the
+ * trends of the job are built again.
+ */
+public final class TrendPictures {
+
+	/**
+	 * The file naming the current generation.
+	 */
+	static final String CURRENT_FILE_NAME = "current";
+
+	/**
+	 * The folder of the charts rendered on demand.
+	 */
+	static final String CHARTS_FOLDER_NAME = "charts";
+
+	private static final Logger LOGGER = Logger.getLogger(TrendPictures.class.getName());
+
+	private static final String GENERATION_PREFIX = "g";
+
+	private static final Pattern GENERATION_PATTERN = Pattern.compile(GENERATION_PREFIX + "\\d+");
+
+	private static final FileFilter PICTURE_FILTER = new FileFilter() {
+		@Override
+		public boolean accept(final File pathname) {
+			return pathname.isFile() && pathname.getName().toLowerCase().endsWith(".png");
+		}
+	};
+
+	private TrendPictures() {
+		throw new IllegalAccessError();
+	}
+
+	/**
+	 * Gets current generation.
+	 *
+	 * @param picturesFolder the pictures folder
+	 * @return the name of the current generation, null if no generation was published.
+	 */
+	public static String getCurrentGeneration(final File picturesFolder) {
+		final File currentFile = new File(picturesFolder, CURRENT_FILE_NAME);
+		if (!currentFile.isFile()) {
+			return null;
+		}
+		try {
+			final String generation = new String(Files.readAllBytes(currentFile.toPath()), StandardCharsets.UTF_8).trim();
+			return isGeneration(picturesFolder, generation) ? generation : null;
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Unable to read the current NeoLoad trends of " + picturesFolder, e);
+			return null;
+		}
+	}
+
+	private static boolean isGeneration(final File picturesFolder, final String generation) {
+		return generation != null && GENERATION_PATTERN.matcher(generation).matches() && new File(picturesFolder, generation).isDirectory();
+	}
+
+	/**
+	 * Gets the folder of a generation.
+	 *
+	 * @param picturesFolder the pictures folder
+	 * @param generation     the generation, null for the current one
+	 * @return the folder of the generation if it still exists, else the folder of the current generation. The pictures
+	 * folder itself when no generation was published, the pictures were written there by the previous versions.
+	 */
+	public static File getFolder(final File picturesFolder, final String generation) {
+		if (isGeneration(picturesFolder, generation)) {
+			return new File(picturesFolder, generation);
+		}
+		final String current = getCurrentGeneration(picturesFolder);
+		return current == null ? picturesFolder : new File(picturesFolder, current);
+	}
+
+	/**
+	 * List pictures.
+	 *
+	 * @param folder the folder of a generation
+	 * @return the pictures sorted by name
+	 */
+	public static List<File> listPictures(final File folder) {
+		final File[] files = folder.listFiles(PICTURE_FILTER);
+		if (files == null) {
+			return new ArrayList<>();
+		}
+		Arrays.sort(files);
+		return new ArrayList<>(Arrays.asList(files));
+	}
+
+	/**
+	 * Gets the folder of the charts rendered on demand.
+	 *
+	 * @param picturesFolder the pictures folder
+	 * @return the charts folder
+	 */
+	public static File getChartsFolder(final File picturesFolder) {
+		return new File(picturesFolder, CHARTS_FOLDER_NAME);
+	}
+
+	/**
+	 * Remove the generations and the pictures written by the previous versions, once the trend store can render the
+	 * charts.
+	 *
+	 * @param picturesFolder the pictures folder
+	 */
+	static void removeGenerations(final File picturesFolder) {
+		final File[] files = picturesFolder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			final String name = file.getName();
+			if (file.isDirectory() && GENERATION_PATTERN.matcher(name).matches() || PICTURE_FILTER.accept(file)
+					|| name.equals(CURRENT_FILE_NAME)) {
+				try {
+					Util.deleteRecursive(file);
+				} catch (IOException e) {
+					LOGGER.log(Level.FINE, "Unable to delete the old NeoLoad trends " + file, e);
+				}
+			}
+		}
+	}
+}
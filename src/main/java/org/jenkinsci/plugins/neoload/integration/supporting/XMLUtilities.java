@@ -39,11 +39,14 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.*;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -65,9 +68,39 @@ public final class XMLUtilities implements Serializable {
 	private static final XPathFactory XPATHFACTORY = XPathFactory.newInstance();
 
 	/**
-	 * Used for XPATH expressions.
+	 * Maximum number of compiled expressions kept by each thread.
+	 */
+	private static final int XPATH_CACHE_SIZE = 256;
+
+	/**
+	 * Used for XPATH expressions. Neither XPath nor XPathExpression are thread-safe so each thread gets its own
+	 * evaluator and its own compiled expressions.
 	 */
-	private static final XPath XPATH = XPATHFACTORY.newXPath();
+	private static final ThreadLocal<XPath> XPATH = new ThreadLocal<XPath>() {
+		@Override
+		protected XPath initialValue() {
+			synchronized (XPATHFACTORY) {
+				return XPATHFACTORY.newXPath();
+			}
+		}
+	};
+
+	/**
+	 * The compiled expressions, the least recently used is dropped when the cache is full.
+	 */
+	private static final ThreadLocal<Map<String, XPathExpression>> XPATH_CACHE = new ThreadLocal<Map<String, XPathExpression>>() {
+		@Override
+		protected Map<String, XPathExpression> initialValue() {
+			return new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<String, XPathExpression> eldest) {
+					return size() > XPATH_CACHE_SIZE;
+				}
+			};
+		}
+	};
 
 	/**
 	 * Log various messages.
@@ -159,12 +192,30 @@ public final class XMLUtilities implements Serializable {
 	 * @throws XPathExpressionException the x path expression exception
 	 */
 	public static List<Node> findByExpression(final String expression, final Node searchNode) throws XPathExpressionException {
-		final XPathExpression expr = XPATH.compile(expression);
+		final XPathExpression expr = compile(expression);
 		final NodeList nl = (NodeList) expr.evaluate(searchNode, XPathConstants.NODESET);
 
 		return toList(nl);
 	}
 
+	/**
+	 * Compile an expression. The compiled expression is cached for the current thread and must not be shared with
+	 * other threads.
+	 *
+	 * @param expression the expression
+	 * @return the compiled expression
+	 * @throws XPathExpressionException the x path expression exception
+	 */
+	static XPathExpression compile(final String expression) throws XPathExpressionException {
+		final Map<String, XPathExpression> cache = XPATH_CACHE.get();
+		XPathExpression expr = cache.get(expression);
+		if (expr == null) {
+			expr = XPATH.get().compile(expression);
+			cache.put(expression, expr);
+		}
+		return expr;
+	}
+
 	/**
 	 * Return the first node matching the passed in expression or null if none was found.
 	 *
@@ -220,7 +271,7 @@ public final class XMLUtilities implements Serializable {
 	/**
 	 * Read an xml file.
 	 *
-	 * @param srcFile the src file
+	 * @param srcFile the src file, compressed with gzip if its name ends with .gz
 	 * @return a document created from the passed in file legend
 	 * @throws ParserConfigurationException the parser configuration exception
 	 * @throws SAXException                 the sax exception
@@ -229,7 +280,16 @@ public final class XMLUtilities implements Serializable {
 	public static Document readXmlFile(final String srcFile) throws ParserConfigurationException, SAXException, IOException {
 		final DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
 		final DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-		final Document doc = docBuilder.parse(srcFile);
+		final Document doc;
+		if (ReportCompression.isCompressed(srcFile)) {
+			final File file = new File(srcFile);
+			try (InputStream inputStream = ReportCompression.openReport(file)) {
+				// The system id lets the parser find the dtd next to the report.
+				doc = docBuilder.parse(inputStream, file.toURI().toString());
+			}
+		} else {
+			doc = docBuilder.parse(srcFile);
+		}
 
 		// see http://stackoverflow.com/questions/13786607/normalization-in-dom-parsing-with-java-how-does-it-work
 		doc.getDocumentElement().normalize();
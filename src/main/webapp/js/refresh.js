@@ -1,15 +1,67 @@
-function checklock(){
+// Wait for the end of the trend rebuild, the server answers as soon as it ends (or after its timeout, then wait again).
+function awaitTrends(){
 			var xhttp = new XMLHttpRequest();
 			xhttp.onreadystatechange = function() {
-				if (this.readyState == 4 && this.status == 200) {
-					// Typical action to be performed when the document is ready:
-					if(xhttp.responseText.trim() == "locked"){
-						setTimeout(checklock,2000);
-					}else{
-						window.location="../";
+				if (this.readyState != 4) {
+					return;
+				}
+				if (this.status != 200) {
+					setTimeout(awaitTrends,2000);
+					return;
+				}
+				var response = JSON.parse(xhttp.responseText);
+				if (!response.done) {
+					awaitTrends();
+					return;
+				}
+				var charts = document.getElementById("charts");
+				charts.innerHTML = "";
+				for (var i = 0; i < response.charts.length; i++) {
+					var img = document.createElement("img");
+					// The chart names are relative to the job page.
+					img.src = "../" + response.charts[i];
+					img.style.verticalAlign = "top";
+					charts.appendChild(img);
+				}
+				document.getElementById("refresh-status").innerHTML = "NeoLoad trends refreshed.";
+			};
+			xhttp.open("GET", "await", true);
+			xhttp.send();
+		}
+
+// Poll the live statistics of a running test and redraw the table until the test ends.
+function refreshLive(){
+			var xhttp = new XMLHttpRequest();
+			xhttp.onreadystatechange = function() {
+				if (this.readyState != 4) {
+					return;
+				}
+				if (this.status != 200) {
+					setTimeout(refreshLive,5000);
+					return;
+				}
+				var response = JSON.parse(xhttp.responseText);
+				var table = document.getElementById("live-statistics");
+				while (table.rows.length > 1) {
+					table.deleteRow(1);
+				}
+				for (var i = 0; i < response.samples.length; i++) {
+					var sample = response.samples[i];
+					var row = table.insertRow(-1);
+					var values = [sample.elapsed, sample.hitsPerSecond == null ? "" : sample.hitsPerSecond, sample.errors, sample.virtualUsers];
+					for (var j = 0; j < values.length; j++) {
+						var cell = row.insertCell(-1);
+						cell.className = "pane";
+						cell.textContent = values[j] < 0 ? "" : values[j];
 					}
 				}
+				if (response.running) {
+					setTimeout(refreshLive,5000);
+				} else {
+					document.getElementById("live-status").textContent = response.abortReason == null ? "Test finished."
+							: "Test stopped early, live abort rule breached: " + response.abortReason;
+				}
 			};
-			xhttp.open("GET", "checklock", true);
+			xhttp.open("GET", "latest", true);
 			xhttp.send();
 		}
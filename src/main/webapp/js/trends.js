@@ -0,0 +1,120 @@
+// Load the values of the trends selected in the form and draw one chart per graph, in the browser.
+function drawTrends(form){
+			var query = [];
+			for (var i = 0; i < form.elements.length; i++) {
+				var element = form.elements[i];
+				if (element.name && element.value) {
+					query.push(encodeURIComponent(element.name) + "=" + encodeURIComponent(element.value));
+				}
+			}
+			var xhttp = new XMLHttpRequest();
+			xhttp.onreadystatechange = function() {
+				if (this.readyState != 4) {
+					return;
+				}
+				var charts = document.getElementById("charts");
+				charts.innerHTML = "";
+				if (this.status != 200) {
+					charts.textContent = "Unable to load the NeoLoad trends.";
+					return;
+				}
+				var response = JSON.parse(xhttp.responseText);
+				if (response.graphs.length == 0 || response.builds.length == 0) {
+					charts.textContent = "No NeoLoad trends to show.";
+					return;
+				}
+				for (var j = 0; j < response.graphs.length; j++) {
+					charts.appendChild(drawTrendChart(response.builds, response.graphs[j]));
+				}
+			};
+			xhttp.open("GET", "data" + (query.length > 0 ? "?" + query.join("&") : ""), true);
+			xhttp.send();
+		}
+
+// Draw the curves of a graph in a canvas, a missing value breaks the line.
+function drawTrendChart(builds, graph){
+			var left = 60, right = 15, top = 30, bottom = 50, legendHeight = 20 * graph.curves.length;
+			var canvas = document.createElement("canvas");
+			canvas.width = Math.max(500, Math.min(builds.length * 15, 2000)) + left + right;
+			canvas.height = 200 + top + bottom + legendHeight;
+			canvas.style.verticalAlign = "top";
+			var width = canvas.width - left - right, height = canvas.height - top - bottom - legendHeight;
+			var context = canvas.getContext("2d");
+			context.font = "11px Helvetica, Arial, sans-serif";
+			context.fillStyle = "#ffffff";
+			context.fillRect(0, 0, canvas.width, canvas.height);
+
+			var min = 0, max = 0;
+			for (var c = 0; c < graph.curves.length; c++) {
+				var values = graph.curves[c].values;
+				for (var v = 0; v < values.length; v++) {
+					if (values[v] != null) {
+						min = Math.min(min, values[v]);
+						max = Math.max(max, values[v]);
+					}
+				}
+			}
+			if (max == min) {
+				max = min + 1;
+			}
+			var x = function(index) {
+				return left + (builds.length == 1 ? width / 2 : index * width / (builds.length - 1));
+			};
+			var y = function(value) {
+				return top + height - (value - min) * height / (max - min);
+			};
+
+			context.fillStyle = "#000000";
+			context.font = "bold 14px Helvetica, Arial, sans-serif";
+			context.fillText(graph.title, left, 20);
+			context.font = "11px Helvetica, Arial, sans-serif";
+			context.strokeStyle = "#dddddd";
+			context.textAlign = "right";
+			for (var t = 0; t <= 5; t++) {
+				var tick = min + (max - min) * t / 5;
+				context.beginPath();
+				context.moveTo(left, y(tick));
+				context.lineTo(left + width, y(tick));
+				context.stroke();
+				context.fillText(Number(tick.toPrecision(3)).toString(), left - 5, y(tick) + 4);
+			}
+			var step = Math.max(1, Math.ceil(builds.length * 30 / width));
+			for (var b = 0; b < builds.length; b += step) {
+				context.save();
+				context.translate(x(b) + 4, top + height + 5);
+				context.rotate(-Math.PI / 2);
+				context.fillText("#" + builds[b], 0, 0);
+				context.restore();
+			}
+			context.save();
+			context.translate(12, top + height / 2);
+			context.rotate(-Math.PI / 2);
+			context.textAlign = "center";
+			context.fillText(graph.yLabel, 0, 0);
+			context.restore();
+
+			context.textAlign = "left";
+			for (var k = 0; k < graph.curves.length; k++) {
+				var curve = graph.curves[k];
+				context.strokeStyle = curve.color;
+				context.fillStyle = curve.color;
+				context.beginPath();
+				var drawing = false;
+				for (var p = 0; p < curve.values.length; p++) {
+					if (curve.values[p] == null) {
+						drawing = false;
+					} else if (drawing) {
+						context.lineTo(x(p), y(curve.values[p]));
+					} else {
+						context.moveTo(x(p), y(curve.values[p]));
+						drawing = true;
+					}
+				}
+				context.stroke();
+				var legendY = top + height + bottom + 20 * k;
+				context.fillRect(left, legendY, 10, 10);
+				context.fillStyle = "#000000";
+				context.fillText(curve.legend, left + 15, legendY + 9);
+			}
+			return canvas;
+		}
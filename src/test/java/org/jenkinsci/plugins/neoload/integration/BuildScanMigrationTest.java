@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Project;
+import hudson.model.Run;
+import hudson.tasks.Builder;
+import hudson.util.RunList;
+import hudson.util.Secret;
+import org.jenkinsci.plugins.neoload.integration.supporting.MockObjects;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Secret.class})
+public class BuildScanMigrationTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Mock
+	private Secret secret;
+
+	private MockObjects mo;
+
+	@Before
+	public void setup() throws Exception {
+		PowerMockito.when(secret.getEncryptedValue()).thenReturn("123");
+		mo = new MockObjects(secret);
+	}
+
+	private Project mockProject(final String name) throws Exception {
+		final Project project = mock(Project.class);
+		when(project.getUrl()).thenReturn("job/" + name + "/");
+		when(project.getFullName()).thenReturn(name);
+		when(project.getRootDir()).thenReturn(temporaryFolder.newFolder(name));
+		when(project.getBuilders()).thenReturn(Collections.<Builder>singletonList(mo.getNeoBuildAction()));
+		return project;
+	}
+
+	private AbstractBuild mockBuild(final Project project, final boolean building) {
+		final AbstractBuild build = mock(AbstractBuild.class);
+		doReturn(project).when(build).getProject();
+		when(build.isBuilding()).thenReturn(building);
+		when(build.getArtifacts()).thenReturn(Collections.emptyList());
+		return build;
+	}
+
+	@Test
+	public void completedBuildsScannedAndMarked() throws Exception {
+		final Project project = mockProject("scan");
+		final AbstractBuild completed = mockBuild(project, false);
+		final AbstractBuild running = mockBuild(project, true);
+		when(project.getBuilds()).thenReturn(RunList.fromRuns(Arrays.<Run>asList(running, completed)));
+
+		final BuildScanMigration.Progress progress = new BuildScanMigration.Progress();
+		BuildScanMigration.scan(project, progress);
+		assertEquals("2/2", progress.toString());
+		verify(completed).addAction(any(NeoResultsAction.class));
+		verify(completed).save();
+		// The builder of the running build adds its results.
+		verify(running, never()).addAction(any(NeoResultsAction.class));
+		verify(running, never()).save();
+		assertTrue(new File(project.getRootDir(), BuildScanMigration.MARKER_FILE_NAME).isFile());
+	}
+
+	@Test
+	public void scannedJobNotScannedAgain() throws Exception {
+		final Project project = mockProject("scanned");
+		assertTrue(new File(project.getRootDir(), BuildScanMigration.MARKER_FILE_NAME).createNewFile());
+		BuildScanMigration.schedule(project);
+		assertNull(BuildScanMigration.getProgress(project));
+		verify(project, never()).getBuilds();
+	}
+
+	@Test
+	public void progressReportedWhileScanning() throws Exception {
+		final Project project = mockProject("progress");
+		final RunList builds = RunList.fromRuns(Arrays.<Run>asList(mockBuild(project, false)));
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		when(project.getBuilds()).thenAnswer(new Answer<RunList>() {
+			@Override
+			public RunList answer(final InvocationOnMock invocation) throws Throwable {
+				started.countDown();
+				assertTrue(release.await(10, TimeUnit.SECONDS));
+				return builds;
+			}
+		});
+
+		BuildScanMigration.schedule(project);
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		assertEquals("0/0", BuildScanMigration.getProgress(project));
+		release.countDown();
+		final File marker = new File(project.getRootDir(), BuildScanMigration.MARKER_FILE_NAME);
+		for (int i = 0; i < 100 && BuildScanMigration.getProgress(project) != null; i++) {
+			Thread.sleep(100);
+		}
+		assertNull(BuildScanMigration.getProgress(project));
+		assertTrue(marker.isFile());
+	}
+}
@@ -86,6 +86,45 @@ public class NeoBuildActionTest extends HudsonTestCase {
 		assertTrue("when leasing a license the license ID should be there", cl.contains(ntssi.getLicenseID()));
 	}
 
+	@Test
+	public void testPrepareCommandLineSharded() {
+		final NTSServerInfo ntssi = new NTSServerInfo("uniqueID", "http://url.com:8080", "loginUser", secret, "Label 1", "collabPath", "licenseID");
+		final NeoBuildAction neoBuildAction =
+				new NeoBuildAction("c:/NeoLoad/executable",
+						"shared-project-type", // project type - local or shared.
+						"reportTypeDefault", // report type
+						"c:/local_Project_File.prj",
+						"Shared_Project_Name", "Scenario_Name",
+						"c:/htmlReport.html", "c:/xmlReport.xml", "c:/pdfReport.pdf", "c:/junitReport.xml",
+						false, // display the GUI
+						false, // display the GUI
+						"test result name", "test description",
+						"shared-license-type", // license type - local or shared.
+						"50", // VU count for license
+						"0", //Vu count for SAP
+						"1", // license hours
+						"", // custom command line options
+						true, // publish test results
+						ntssi, ntssi, // shared project server, license server.
+						true, // show trend average response
+						true, // show trend error rate
+						null,
+						30); // graph info
+		neoBuildAction.setShardIndex(1);
+		neoBuildAction.setShardCount(3);
+
+		Launcher launcher = Mockito.mock(Launcher.class);
+		final String cl = neoBuildAction.prepareCommandLine(launcher, null, true).toString();
+
+		// 50 virtual users on 3 shards: 17, 17 and 16.
+		assertTrue("the shard leases its part of the license", cl.contains("-leaseLicense \"licenseID:17:1\""));
+		assertTrue("the shard is passed to the scenario", cl.contains("-variables \"shardIndex=1,shardCount=3\""));
+		assertTrue("the test result names the shard", cl.contains("test result name - shard 2/3"));
+		neoBuildAction.setShardIndex(2);
+		assertEquals("16", neoBuildAction.getShareOfShard("50"));
+		assertEquals("not a number", neoBuildAction.getShareOfShard("not a number"));
+	}
+
 	@Test
 	public void testPrepareCommandLineNTSAndThirdPartySVNServer() {
 		final CollabServerInfo csi = new CollabServerInfo("COLLAB_uniqueID", "COLLAB_url", "COLLAB_loginUser",
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration;
+
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.apache.commons.io.FileUtils;
+import org.codehaus.plexus.util.ReflectionUtils;
+import org.jenkinsci.plugins.neoload.integration.supporting.NeoLoadReportDocTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class NeoResultsRunListenerTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static Run.Artifact artifact(final File artifactsDir, final String relativePath) throws Exception {
+		final Run.Artifact artifact = mock(Run.Artifact.class);
+		when(artifact.getFile()).thenReturn(new File(artifactsDir, relativePath));
+		when(artifact.getHref()).thenReturn(relativePath);
+		ReflectionUtils.setVariableValueInObject(artifact, "relativePath", relativePath);
+		return artifact;
+	}
+
+	@Test
+	public void reportResolvedAndSavedOnCompletion() throws Exception {
+		final File rootDir = temporaryFolder.newFolder("build");
+		final File artifactsDir = new File(rootDir, "archive");
+		FileUtils.copyFile(new File(NeoLoadReportDocTest.class.getResource("data/report-valid.xml").getFile()),
+				new File(artifactsDir, "neoload-report/report.xml"));
+		FileUtils.copyFile(new File(NeoLoadReportDocTest.class.getResource("data/myReport.html").getFile()),
+				new File(artifactsDir, "neoload-report/report.html"));
+		final List<Run.Artifact> artifacts = new ArrayList<>();
+		artifacts.add(artifact(artifactsDir, "neoload-report/report.xml"));
+		artifacts.add(artifact(artifactsDir, "neoload-report/report.html"));
+
+		final Run run = mock(Run.class);
+		when(run.getRootDir()).thenReturn(rootDir);
+		when(run.getArtifactsDir()).thenReturn(artifactsDir);
+		when(run.getArtifacts()).thenReturn(artifacts);
+		when(run.getNumber()).thenReturn(1);
+		final NeoResultsAction action = new NeoResultsAction(run, null, null);
+		when(run.getAction(NeoResultsAction.class)).thenReturn(action);
+
+		final NeoResultsRunListener listener = new NeoResultsRunListener();
+		listener.onCompleted(run, mock(TaskListener.class));
+
+		assertTrue(action.isReportResolved());
+		assertEquals(new File(artifactsDir, "neoload-report/report.xml"), action.getXmlReportFile());
+		assertEquals(0.038f, action.getAverageResponseTime(), 0.0001f);
+		assertEquals(0f, action.getErrorRate(), 0.0001f);
+		verify(run).save();
+
+		// The locations are stored once.
+		listener.onCompleted(run, mock(TaskListener.class));
+		verify(run, times(1)).save();
+	}
+
+	@Test
+	public void buildWithoutResults() throws Exception {
+		final Run run = mock(Run.class);
+		new NeoResultsRunListener().onCompleted(run, mock(TaskListener.class));
+		verify(run, never()).save();
+	}
+}
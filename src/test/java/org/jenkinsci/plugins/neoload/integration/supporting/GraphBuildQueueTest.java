@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.model.Job;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GraphBuildQueueTest {
+
+	@Test
+	public void requestsOfAJobAreCoalesced() throws Exception {
+		final GraphBuildQueue queue = new GraphBuildQueue(2);
+		final Job job = mock(Job.class);
+		when(job.getUrl()).thenReturn("job/coalesced/");
+
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicInteger firstRuns = new AtomicInteger();
+		final AtomicInteger pendingRuns = new AtomicInteger();
+
+		assertTrue(queue.schedule(job, new Runnable() {
+			@Override
+			public void run() {
+				firstRuns.incrementAndGet();
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		assertTrue(queue.isScheduled(job));
+
+		final Runnable pending = new Runnable() {
+			@Override
+			public void run() {
+				pendingRuns.incrementAndGet();
+				done.countDown();
+			}
+		};
+		assertTrue(queue.schedule(job, pending));
+		assertFalse(queue.schedule(job, pending));
+		assertFalse(queue.schedule(job, pending));
+		assertEquals(1, queue.getQueueDepth());
+		final Future<Void> completion = queue.getCompletion(job);
+		assertFalse(completion.isDone());
+
+		release.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		completion.get(10, TimeUnit.SECONDS);
+		assertFalse(queue.isScheduled(job));
+		assertTrue(queue.getCompletion(job).isDone());
+		assertEquals(1, firstRuns.get());
+		assertEquals(1, pendingRuns.get());
+		assertEquals(0, queue.getQueueDepth());
+		assertEquals(2, queue.getCompletedRebuilds());
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.util.FormValidation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LiveAbortMonitorTest {
+
+	private final List<LiveStatistics> received = new ArrayList<>();
+
+	private final LiveOutputStream.Receiver receiver = new LiveOutputStream.Receiver() {
+		@Override
+		public void receive(final LiveStatistics statistics) {
+			received.add(statistics);
+		}
+	};
+
+	@Test
+	public void errorRateBreachedForConsecutiveIntervals() {
+		final LiveAbortMonitor monitor = new LiveAbortMonitor(Arrays.asList(
+				new LiveAbortRule(LiveAbortRule.STATISTIC_ERROR_RATE, LiveAbortRule.OPERATOR_GREATER, 5f, 2)), receiver);
+		// 100 hits per interval: 10% errors, then 1%, then 10% twice.
+		monitor.receive(new LiveStatistics(0L, 10, 10f, 0, 5));
+		monitor.receive(new LiveStatistics(0L, 20, 10f, 10, 5));
+		monitor.receive(new LiveStatistics(0L, 30, 10f, 11, 5));
+		monitor.receive(new LiveStatistics(0L, 40, 10f, 21, 5));
+		assertNull(monitor.getBreach());
+		monitor.receive(new LiveStatistics(0L, 50, 10f, 31, 5));
+		assertNotNull(monitor.getBreach());
+		assertTrue(monitor.getBreach().endsWith("00:00:50"));
+		assertEquals(5, received.size());
+	}
+
+	@Test
+	public void unknownStatisticNeverBreaches() {
+		final LiveAbortMonitor monitor = new LiveAbortMonitor(Arrays.asList(
+				new LiveAbortRule(LiveAbortRule.STATISTIC_VIRTUAL_USERS, LiveAbortRule.OPERATOR_LOWER, 1f, 1)), receiver);
+		monitor.receive(new LiveStatistics(0L, 10, 10f, 0, -1));
+		assertNull(monitor.getBreach());
+		monitor.receive(new LiveStatistics(0L, 20, 10f, 0, 0));
+		assertNotNull(monitor.getBreach());
+	}
+
+	@Test
+	public void unknownStatisticOrOperatorRejected() {
+		assertTrue(LiveAbortRule.isKnownStatistic(LiveAbortRule.STATISTIC_HITS_PER_SECOND));
+		assertFalse(LiveAbortRule.isKnownStatistic("errorRatio"));
+		assertFalse(LiveAbortRule.isKnownStatistic(null));
+		assertTrue(LiveAbortRule.isKnownOperator(LiveAbortRule.OPERATOR_LOWER));
+		assertFalse(LiveAbortRule.isKnownOperator("less"));
+
+		final LiveAbortRule.DescriptorImpl descriptor = new LiveAbortRule.DescriptorImpl();
+		assertEquals(FormValidation.Kind.OK, descriptor.doCheckStatistic(LiveAbortRule.STATISTIC_ERRORS).kind);
+		assertEquals(FormValidation.Kind.ERROR, descriptor.doCheckStatistic("errorRatio").kind);
+		assertEquals(FormValidation.Kind.ERROR, descriptor.doCheckOperator("less").kind);
+	}
+
+	@Test
+	public void rulesOfTheStepChecked() {
+		LiveAbortRule.checkRules(null);
+		LiveAbortRule.checkRules(Arrays.asList(
+				new LiveAbortRule(LiveAbortRule.STATISTIC_ERRORS, LiveAbortRule.OPERATOR_GREATER, 10f, 1)));
+		try {
+			LiveAbortRule.checkRules(Arrays.asList(
+					new LiveAbortRule("errorRatio", LiveAbortRule.OPERATOR_GREATER, 5f, 1)));
+			fail("The unknown statistic must be rejected");
+		} catch (NeoloadException e) {
+			assertTrue(e.getMessage().contains("errorRatio"));
+		}
+		try {
+			LiveAbortRule.checkRules(Arrays.asList(
+					new LiveAbortRule(LiveAbortRule.STATISTIC_ERRORS, "less", 5f, 1)));
+			fail("The unknown operator must be rejected");
+		} catch (NeoloadException e) {
+			assertTrue(e.getMessage().contains("less"));
+		}
+	}
+
+	@Test
+	public void noRules() {
+		final LiveAbortMonitor monitor = new LiveAbortMonitor(null, receiver);
+		monitor.receive(new LiveStatistics(0L, 10, 10f, 1000, 5));
+		assertNull(monitor.getBreach());
+		assertEquals(1, received.size());
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LiveStatisticsParserTest {
+
+	@Test
+	public void parseStatistics() {
+		final LiveStatistics statistics = LiveStatisticsParser.parse("Elapsed time: 01:02:05 - Hits/s: 1,234.5 - Errors: 12 - VUs: 50", 42L);
+		assertNotNull(statistics);
+		assertEquals(42L, statistics.getTimestamp());
+		assertEquals(3725L, statistics.getElapsedSeconds());
+		assertEquals("01:02:05", statistics.getElapsedTime());
+		assertEquals(1234.5f, statistics.getHitsPerSecond(), 0.001f);
+		assertEquals(12L, statistics.getErrors());
+		assertEquals(50, statistics.getVirtualUsers());
+	}
+
+	@Test
+	public void parsePartialStatistics() {
+		final LiveStatistics statistics = LiveStatisticsParser.parse("Hits per second = 12,5; Virtual users = 10", 0L);
+		assertNotNull(statistics);
+		assertEquals(12.5f, statistics.getHitsPerSecond(), 0.001f);
+		assertEquals(10, statistics.getVirtualUsers());
+		assertEquals(-1L, statistics.getElapsedSeconds());
+		assertEquals(-1L, statistics.getErrors());
+	}
+
+	@Test
+	public void ignoreOtherLines() {
+		assertNull(LiveStatisticsParser.parse(null, 0L));
+		assertNull(LiveStatisticsParser.parse("Starting NeoLoad...", 0L));
+		assertNull(LiveStatisticsParser.parse("Errors: 3 found in the project", 0L));
+	}
+
+	@Test
+	public void streamCopiesAndPublishes() throws Exception {
+		final ByteArrayOutputStream log = new ByteArrayOutputStream();
+		final List<LiveStatistics> received = new ArrayList<>();
+		final LiveOutputStream stream = new LiveOutputStream(log, StandardCharsets.UTF_8, new LiveOutputStream.Receiver() {
+			@Override
+			public void receive(final LiveStatistics statistics) {
+				received.add(statistics);
+			}
+		});
+		stream.write("Test started\nElapsed: 00:00:10 - Errors: 0\nElapsed: 00:00:20 - Errors: 1".getBytes(StandardCharsets.UTF_8));
+		assertEquals(1, received.size());
+		stream.close();
+		assertEquals(2, received.size());
+		assertEquals(1L, received.get(1).getErrors());
+		assertEquals("Test started\nElapsed: 00:00:10 - Errors: 0\nElapsed: 00:00:20 - Errors: 1", log.toString("UTF-8"));
+	}
+}
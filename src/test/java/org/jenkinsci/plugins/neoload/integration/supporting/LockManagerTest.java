@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import hudson.model.Job;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LockManagerTest {
+
+	@Test
+	public void completionIsDoneOnUnlock() {
+		final LockManager lockManager = new LockManager();
+		final Job job = mock(Job.class);
+		when(job.getUrl()).thenReturn("job/locked/");
+		final Job other = mock(Job.class);
+		when(other.getUrl()).thenReturn("job/other/");
+
+		assertTrue(lockManager.getCompletion(job).isDone());
+		assertTrue(lockManager.tryLock(job));
+		assertTrue(lockManager.isLocked(job));
+		assertFalse(lockManager.isLocked(other));
+		assertTrue(lockManager.tryLock(other));
+
+		final ListenableFuture<Void> completion = lockManager.getCompletion(job);
+		assertFalse(completion.isDone());
+		assertFalse(lockManager.tryLock(job));
+		assertEquals(1, lockManager.getContentions());
+
+		lockManager.unlock(job);
+		assertTrue(completion.isDone());
+		assertFalse(lockManager.isLocked(job));
+		assertTrue(lockManager.isLocked(other));
+		assertEquals(2, lockManager.getAcquisitions());
+		assertTrue(lockManager.getMaxHoldTime() >= 0);
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NeoloadGraphXPathStatTest {
+
+	private static final String AVG = "/report/summary/all-summary/statistic-item[@type='httppage']/@avg";
+
+	private static NeoloadTrendStore store(final int builds, final int spike) {
+		final NeoloadTrendStore store = new NeoloadTrendStore("signature");
+		for (int i = 1; i <= builds; i++) {
+			final float value = i == spike ? 100f : (float) (10 + Math.sin(i / 50.0));
+			store.append(i, Collections.singletonMap(AVG, value));
+		}
+		return store;
+	}
+
+	@Test
+	public void shortHistoryNotDownsampled() {
+		final NeoloadGraphXPathStat graph = new NeoloadGraphXPathStat("Avg", "secs", new NeoloadCurvesXPathStat("Time", Color.BLUE, AVG));
+		final NeoloadTrendStore store = store(50, 0);
+		assertEquals(50, graph.getPlottedBuilds(store).size());
+		assertEquals(750, graph.computeWidth(store));
+	}
+
+	@Test
+	public void longHistoryDownsampled() {
+		final NeoloadGraphXPathStat graph = new NeoloadGraphXPathStat("Avg", "secs", new NeoloadCurvesXPathStat("Time", Color.BLUE, AVG));
+		final NeoloadTrendStore store = store(5000, 1234);
+		final List<Integer> plotted = graph.getPlottedBuilds(store);
+		assertEquals(NeoloadGraphXPathStat.MAX_POINTS, plotted.size());
+		assertEquals(Integer.valueOf(1), plotted.get(0));
+		assertEquals(Integer.valueOf(5000), plotted.get(plotted.size() - 1));
+		// The peak is kept.
+		assertTrue(plotted.contains(1234));
+		final List<Integer> sorted = new ArrayList<>(plotted);
+		Collections.sort(sorted);
+		assertEquals(sorted, plotted);
+		assertEquals(NeoloadGraphXPathStat.MAX_POINTS * 15, graph.computeWidth(store));
+	}
+}
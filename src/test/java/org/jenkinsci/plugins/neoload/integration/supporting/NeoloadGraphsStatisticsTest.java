@@ -1,8 +1,12 @@
 package org.jenkinsci.plugins.neoload.integration.supporting;
 
+import com.google.gson.stream.JsonWriter;
+import hudson.model.Run;
 import hudson.util.Secret;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.powermock.api.mockito.PowerMockito;
@@ -13,15 +17,23 @@ import javax.xml.xpath.XPathExpressionException;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({Secret.class})
 public class NeoloadGraphsStatisticsTest {
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private MockObjects mo = null;
 	private File report1;
 	private File report2;
@@ -45,13 +57,163 @@ public class NeoloadGraphsStatisticsTest {
 		neoloadGraphsStatistics.addReport(report1,1);
 		neoloadGraphsStatistics.addReport(report2,2);
 		final List<NeoloadGraphXPathStat> neoloadGraphXPathStats = neoloadGraphsStatistics.getNeoloadGraphXPathStats();
+		final NeoloadTrendStore store = neoloadGraphsStatistics.getStore();
 		assertEquals(2,neoloadGraphXPathStats.size());
-		assertEquals(new Float(0.0),neoloadGraphXPathStats.get(0).getCurves().get(0).getBuildToValue().get(1));
-		assertEquals(new Float(0.038),neoloadGraphXPathStats.get(0).getCurves().get(0).getBuildToValue().get(2));
+		assertEquals(new Float(0.0),neoloadGraphXPathStats.get(0).getCurves().get(0).getBuildToValue(store).get(1));
+		assertEquals(new Float(0.038),neoloadGraphXPathStats.get(0).getCurves().get(0).getBuildToValue(store).get(2));
+
+
+		assertEquals(new Float(100),neoloadGraphXPathStats.get(1).getCurves().get(0).getBuildToValue(store).get(1));
+		assertEquals(new Float(0.0),neoloadGraphXPathStats.get(1).getCurves().get(0).getBuildToValue(store).get(2));
+	}
+
+	@Test
+	public void loadStoredValues() {
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		neoloadGraphsStatistics.addReport(report1,1);
+		neoloadGraphsStatistics.addReport(report2,2);
+
+		final NeoloadGraphsStatistics loaded = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		assertTrue(loaded.load(neoloadGraphsStatistics.getStore()));
+		assertEquals(2, loaded.getLastBuildNumber());
+		final List<NeoloadGraphXPathStat> neoloadGraphXPathStats = loaded.getNeoloadGraphXPathStats();
+		final NeoloadTrendStore store = loaded.getStore();
+		assertEquals(new Float(0.038),neoloadGraphXPathStats.get(0).getCurves().get(0).getBuildToValue(store).get(2));
+		assertEquals(new Float(100),neoloadGraphXPathStats.get(1).getCurves().get(0).getBuildToValue(store).get(1));
+
+		final NeoloadTrendStore otherDefinition = new NeoloadTrendStore("other");
+		assertFalse(new NeoloadGraphsStatistics(mo.getNeoBuildAction()).load(otherDefinition));
+		assertFalse(new NeoloadGraphsStatistics(mo.getNeoBuildAction()).load(null));
+	}
+
+	@Test
+	public void loadedStoreTrimmed() throws Exception {
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		final int maxTrends = mo.getNeoBuildAction().getMaxTrends();
+		final NeoloadTrendStore store = neoloadGraphsStatistics.getStore();
+		for (int i = 1; i <= maxTrends; i++) {
+			store.append(i, Collections.singletonMap(NeoloadGraphsStatistics.ERROR_RATE_XPATH, (float) i));
+		}
+		final File file = new File(temporaryFolder.getRoot(), NeoloadTrendStore.FILE_NAME);
+		store.write(file);
+		// The oldest build is dropped from memory, the new build is only logged.
+		store.append(maxTrends + 1, Collections.singletonMap(NeoloadGraphsStatistics.ERROR_RATE_XPATH, 0f));
+		neoloadGraphsStatistics.trimStore();
+		store.save(file);
+		assertEquals(maxTrends + 1, NeoloadTrendStore.read(file).size());
+
+		final NeoloadGraphsStatistics loaded = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		assertTrue(loaded.load(NeoloadTrendStore.read(file)));
+		assertEquals(maxTrends, loaded.getStore().size());
+		assertEquals(2, loaded.getStore().getBuildNumber(0));
+		assertEquals(maxTrends + 1, loaded.getLastBuildNumber());
+	}
+
+	@Test
+	public void chartsRenderedOnDemand() throws Exception {
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		neoloadGraphsStatistics.addReport(report1,1);
+		final File chartsFolder = new File(temporaryFolder.getRoot(), "charts");
+		final String key = neoloadGraphsStatistics.getChartKey(0);
+		final File chart = neoloadGraphsStatistics.getChart(chartsFolder, 0);
+		assertTrue(chart.isFile());
+		assertEquals("stat00-" + key + ".png", chart.getName());
+		assertEquals(chart, neoloadGraphsStatistics.getChart(chartsFolder, 0));
+		assertEquals(0, NeoloadGraphsStatistics.getChartIndex("stat00.png"));
+		assertEquals(-1, NeoloadGraphsStatistics.getChartIndex("../stat00.png"));
+
+		// A new build changes the key, the previous picture is kept for the requests still serving it.
+		neoloadGraphsStatistics.addReport(report2,2);
+		assertNotEquals(key, neoloadGraphsStatistics.getChartKey(0));
+		final File updated = neoloadGraphsStatistics.getChart(chartsFolder, 0);
+		assertNotEquals(chart, updated);
+		assertTrue(chart.exists());
+		// Until the trends are stored.
+		neoloadGraphsStatistics.removeStaleCharts(chartsFolder);
+		assertFalse(chart.exists());
+		assertTrue(updated.isFile());
+		// The other graph isn't rendered until it is requested.
+		assertEquals(1, chartsFolder.list().length);
+	}
+
+	@Test
+	public void chartsRenderedOnRequest() throws Exception {
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		neoloadGraphsStatistics.addReport(report1,1);
+		neoloadGraphsStatistics.addReport(report2,2);
+		final File chartsFolder = new File(temporaryFolder.getRoot(), "charts");
+		for (int i = 0; i < neoloadGraphsStatistics.getChartCount(); i++) {
+			final File chart = new File(chartsFolder, "stat0" + i + "-" + neoloadGraphsStatistics.getChartKey(i) + ".png");
+			assertEquals(chart, neoloadGraphsStatistics.getChart(chartsFolder, i));
+			assertTrue(chart.isFile());
+		}
+		assertEquals(neoloadGraphsStatistics.getChartCount(), chartsFolder.list().length);
+	}
+
+	@Test
+	public void writeSvg() throws Exception {
+		assertEquals("stat01.png", new NeoloadGraphsStatistics(mo.getNeoBuildAction()).getChartName(1));
+		mo.getNeoBuildAction().setSvgTrends(true);
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		neoloadGraphsStatistics.addReport(report1,1);
+		neoloadGraphsStatistics.addReport(report2,2);
+		assertTrue(neoloadGraphsStatistics.isSvg());
+		assertEquals("stat01.svg", neoloadGraphsStatistics.getChartName(1));
+		assertEquals(1, NeoloadGraphsStatistics.getChartIndex("stat01.svg"));
+
+		final StringWriter svg = new StringWriter();
+		neoloadGraphsStatistics.writeSvg(svg, 1);
+		final String content = svg.toString();
+		assertTrue(content.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"500\" height=\"200\""));
+		assertTrue(content.contains(">Error Rate</text>"));
+		assertTrue(content.contains(">#1</text>"));
+		assertTrue(content.contains(">#2</text>"));
+		assertTrue(content.contains("stroke=\"#c80000\""));
+		assertTrue(content.endsWith("</svg>\n"));
+	}
+
+	@Test
+	public void writeJson() throws Exception {
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		neoloadGraphsStatistics.addReport(report1,1);
+		neoloadGraphsStatistics.addReport(report2,2);
+
+		StringWriter json = new StringWriter();
+		neoloadGraphsStatistics.writeJson(new JsonWriter(json), null, null, Collections.<String>emptyList());
+		assertEquals("{\"builds\":[1,2],\"graphs\":["
+				+ "{\"index\":0,\"title\":\"Avg. Resp. Time (pages)\",\"yLabel\":\"Avg Resp Time (secs)\",\"curves\":"
+				+ "[{\"legend\":\"Time\",\"color\":\"#edb800\",\"values\":[0.0,0.038]}]},"
+				+ "{\"index\":1,\"title\":\"Error Rate\",\"yLabel\":\"Error Rate %\",\"curves\":"
+				+ "[{\"legend\":\"Time\",\"color\":\"#c80000\",\"values\":[100.0,0.0]}]}]}", json.toString());
+
+		json = new StringWriter();
+		neoloadGraphsStatistics.writeJson(new JsonWriter(json), 2, null, Collections.singletonList("Error Rate"));
+		assertEquals("{\"builds\":[2],\"graphs\":["
+				+ "{\"index\":1,\"title\":\"Error Rate\",\"yLabel\":\"Error Rate %\",\"curves\":"
+				+ "[{\"legend\":\"Time\",\"color\":\"#c80000\",\"values\":[0.0]}]}]}", json.toString());
+	}
+
+	@Test
+	public void seriesSideBySide() throws Exception {
+		final NeoloadGraphsStatistics neoloadGraphsStatistics = new NeoloadGraphsStatistics(mo.getNeoBuildAction(), Arrays.asList("A", "B"));
+		final List<NeoloadGraphXPathStat> neoloadGraphXPathStats = neoloadGraphsStatistics.getNeoloadGraphXPathStats();
+		assertEquals(2, neoloadGraphXPathStats.size());
+		assertEquals(2, neoloadGraphXPathStats.get(0).getCurves().size());
+		assertEquals("A", neoloadGraphXPathStats.get(0).getCurves().get(0).getLegend());
+		assertEquals("B", neoloadGraphXPathStats.get(0).getCurves().get(1).getLegend());
 
+		// Only the scenario A ran in this build.
+		final File buildDir = temporaryFolder.newFolder();
+		NeoloadReportExtractor.collectMetrics(report2).write(new File(buildDir, ReportMetrics.getSeriesFileName("A")));
+		final Run run = mock(Run.class);
+		when(run.getRootDir()).thenReturn(buildDir);
+		when(run.getNumber()).thenReturn(2);
+		neoloadGraphsStatistics.addRuns(Collections.<Run<?, ?>>singletonList(run));
 
-		assertEquals(new Float(100),neoloadGraphXPathStats.get(1).getCurves().get(0).getBuildToValue().get(1));
-		assertEquals(new Float(0.0),neoloadGraphXPathStats.get(1).getCurves().get(0).getBuildToValue().get(2));
+		final NeoloadTrendStore store = neoloadGraphsStatistics.getStore();
+		assertEquals(new Float(0.038), neoloadGraphXPathStats.get(0).getCurves().get(0).getBuildToValue(store).get(2));
+		assertTrue(neoloadGraphXPathStats.get(0).getCurves().get(1).getBuildToValue(store).isEmpty());
+		assertFalse(neoloadGraphsStatistics.getSignature().equals(new NeoloadGraphsStatistics(mo.getNeoBuildAction()).getSignature()));
 	}
 
-}
\ No newline at end of file
+}
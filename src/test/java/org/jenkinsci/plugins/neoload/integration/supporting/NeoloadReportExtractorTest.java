@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.FilePath;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class NeoloadReportExtractorTest {
+
+	private static final String AVG_PAGES = "/report/summary/all-summary/statistic-item[@type='httppage']/@avg";
+	private static final String ERROR_RATE = "/report/summary/statistics/statistic[@name='error_percentile']/@value";
+	private static final String CUSTOM = NeoLoadReportDoc.getXPathForCustomGraph("VirtualUser>/jpetstore/", "average");
+	private static final String MONITOR = NeoLoadReportDoc.getXPathForCustomMonitorOrLGGraph("LG localhost/CPU", "average");
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File report;
+
+	@Before
+	public void setup() {
+		report = new File(NeoloadReportExtractorTest.class.getResource("data/report-valid.xml").getFile());
+	}
+
+	@Test
+	public void extractSameValuesAsXPath() throws Exception {
+		final List<String> xPaths = Arrays.asList(AVG_PAGES, ERROR_RATE, CUSTOM, MONITOR, "/report/summary/unknown/@value");
+		final Map<String, Float> values = NeoloadReportExtractor.extract(report, xPaths);
+		final Document document = XMLUtilities.readXmlFile(report.getAbsolutePath());
+		for (String xPath : xPaths) {
+			assertTrue(values.containsKey(xPath));
+			assertEquals(PluginUtils.getCustom(xPath, document), values.get(xPath));
+		}
+		assertEquals(new Float(0.038), values.get(AVG_PAGES));
+		assertEquals(new Float(6.71), values.get(MONITOR));
+		assertNull(values.get("/report/summary/unknown/@value"));
+	}
+
+	@Test
+	public void readCompressedReport() throws Exception {
+		final File copy = new File(temporaryFolder.getRoot(), "report.xml");
+		FileUtils.copyFile(report, copy);
+		FileUtils.copyFile(new File(report.getParentFile(), "report.dtd"), new File(temporaryFolder.getRoot(), "report.dtd"));
+		assertTrue(new FilePath(copy).act(new CompressReportCallable()));
+		final File compressed = new File(temporaryFolder.getRoot(), "report.xml.gz");
+		assertTrue(compressed.length() < report.length() / 5);
+
+		final List<String> xPaths = Arrays.asList(AVG_PAGES, ERROR_RATE, CUSTOM, MONITOR);
+		final Map<String, Float> values = NeoloadReportExtractor.extract(compressed, xPaths);
+		assertEquals(NeoloadReportExtractor.extract(report, xPaths), values);
+		final Document document = XMLUtilities.readXmlFile(compressed.getAbsolutePath());
+		assertEquals(values.get(AVG_PAGES), PluginUtils.getCustom(AVG_PAGES, document));
+		assertEquals(NeoloadReportExtractor.collectMetrics(report).size(), NeoloadReportExtractor.collectMetrics(compressed).size());
+		assertFalse(new FilePath(new File(temporaryFolder.getRoot(), "missing.xml")).act(new CompressReportCallable()));
+	}
+
+	@Test
+	public void unsupportedExpressions() throws Exception {
+		assertFalse(NeoloadReportExtractor.isSupported("//statistic-item/@avg"));
+		assertFalse(NeoloadReportExtractor.isSupported("/report/summary/statistics/statistic[1]/@value"));
+		assertFalse(NeoloadReportExtractor.isSupported("/report/summary"));
+		assertTrue(NeoloadReportExtractor.isSupported(CUSTOM));
+
+		final Map<String, Float> values = NeoloadReportExtractor.extract(report, Arrays.asList("//statistic-item/@avg"));
+		assertTrue(values.isEmpty());
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class NeoloadTrendStoreTest {
+
+	private static final String AVG = "/report/summary/all-summary/statistic-item[@type='httppage']/@avg";
+	private static final String ERRORS = "/report/summary/statistics/statistic[@name='error_percentile']/@value";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static Map<String, Float> values(final float avg, final Float errors) {
+		final Map<String, Float> values = new HashMap<>();
+		values.put(AVG, avg);
+		values.put(ERRORS, errors);
+		return values;
+	}
+
+	@Test
+	public void appendAndTrim() {
+		final NeoloadTrendStore store = new NeoloadTrendStore("signature");
+		for (int i = 1; i <= 100; i++) {
+			assertTrue(store.append(i, i % 10 == 0 ? Collections.<String, Float>emptyMap() : values(i, i % 2 == 0 ? null : (float) i)));
+		}
+		assertFalse(store.append(50, values(0, 0f)));
+		assertEquals(100, store.size());
+		assertEquals(100, store.getLastBuildNumber());
+		assertEquals(3f, store.getValue(ERRORS, 3), 0);
+		assertTrue(Float.isNaN(store.getValue(ERRORS, 4)));
+		assertTrue(Float.isNaN(store.getValue(AVG, 10)));
+		assertTrue(store.contains(10));
+
+		store.trim(97);
+		assertEquals(97, store.size());
+		assertEquals(4, store.getBuildNumber(0));
+		assertFalse(store.contains(3));
+		assertTrue(Float.isNaN(store.getValue(AVG, 3)));
+		assertEquals(4f, store.getValue(AVG, 4), 0);
+
+		for (int i = 101; i <= 200; i++) {
+			store.append(i, values(i, null));
+			store.trim(10);
+		}
+		assertEquals(10, store.size());
+		assertEquals(191, store.getBuildNumber(0));
+		assertEquals(195f, store.getValue(AVG, 195), 0);
+	}
+
+	@Test
+	public void logAndCompaction() throws IOException {
+		final File file = new File(temporaryFolder.getRoot(), NeoloadTrendStore.FILE_NAME);
+		final File logFile = NeoloadTrendStore.getLogFile(file);
+		final NeoloadTrendStore store = new NeoloadTrendStore("signature");
+		store.append(1, values(1, 1f));
+		store.write(file);
+		assertFalse(logFile.exists());
+
+		NeoloadTrendStore read = NeoloadTrendStore.read(file);
+		for (int i = 2; i <= NeoloadTrendStore.COMPACTION_THRESHOLD + 1; i++) {
+			read = NeoloadTrendStore.read(file);
+			assertNotNull(read);
+			assertEquals(i - 1, read.getLastBuildNumber());
+			read.append(i, values(i, null));
+			read.save(file);
+			assertTrue(logFile.isFile());
+		}
+		read = NeoloadTrendStore.read(file);
+		assertEquals(NeoloadTrendStore.COMPACTION_THRESHOLD + 1, read.size());
+		assertEquals(1f, read.getValue(ERRORS, 1), 0);
+		assertEquals(33f, read.getValue(AVG, 33), 0);
+
+		read.append(NeoloadTrendStore.COMPACTION_THRESHOLD + 2, values(0, 0f));
+		read.save(file);
+		assertFalse(logFile.exists());
+		assertEquals(NeoloadTrendStore.COMPACTION_THRESHOLD + 2, NeoloadTrendStore.read(file).getLastBuildNumber());
+	}
+
+	@Test
+	public void truncatedLog() throws IOException {
+		final File file = new File(temporaryFolder.getRoot(), NeoloadTrendStore.FILE_NAME);
+		final File logFile = NeoloadTrendStore.getLogFile(file);
+		final NeoloadTrendStore store = new NeoloadTrendStore("signature");
+		store.append(1, values(1, 1f));
+		store.write(file);
+		store.append(2, values(2, 2f));
+		store.save(file);
+		try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+			out.write(new byte[]{0, 0, 0, 3, 0, 0});
+		}
+
+		final NeoloadTrendStore read = NeoloadTrendStore.read(file);
+		assertEquals(2, read.getLastBuildNumber());
+		read.append(3, values(3, 3f));
+		read.save(file);
+		assertFalse(logFile.exists());
+		assertEquals(3f, NeoloadTrendStore.read(file).getValue(ERRORS, 3), 0);
+	}
+
+	@Test
+	public void readMissingOrInvalidFile() throws IOException {
+		final File file = new File(temporaryFolder.getRoot(), NeoloadTrendStore.FILE_NAME);
+		assertNull(NeoloadTrendStore.read(file));
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write("not a store".getBytes("UTF-8"));
+		}
+		assertNull(NeoloadTrendStore.read(file));
+	}
+}
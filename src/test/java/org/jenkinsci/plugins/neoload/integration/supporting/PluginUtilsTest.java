@@ -26,9 +26,16 @@
  */
 package org.jenkinsci.plugins.neoload.integration.supporting;
 
+import hudson.model.Job;
+import hudson.model.Project;
+import hudson.model.Run;
+import hudson.tasks.Builder;
 import hudson.util.Secret;
+import org.codehaus.plexus.util.ReflectionUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import junit.framework.TestCase;
 import org.junit.runner.RunWith;
@@ -37,7 +44,20 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * @author ajohnson
@@ -47,6 +67,9 @@ import static org.junit.Assert.assertTrue;
 @PrepareForTest({Secret.class})
 public class PluginUtilsTest {
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	/** Mock project for testing. */
 	private MockObjects mo = null;
 
@@ -73,4 +96,86 @@ public class PluginUtilsTest {
 		npo = PluginUtils.getPluginOptions(mo.getApWithOptions());
 		assertTrue(npo == mo.getNeoBuildAction());
 	}
+
+	/**
+	 * Test method for {@link PluginUtils#findArtifacts(java.util.List, java.util.List, int)}.
+	 */
+	@Test
+	public void testFindArtifacts() throws IllegalAccessException {
+		final List<Run.Artifact> artifacts = new ArrayList<>();
+		for (String relativePath : Arrays.asList(
+				"neoload-report/report_files/a.css",
+				"neoload-report/12/report.xml",
+				"neoload-report/13/report.xml.gz",
+				"other/report.xml",
+				"neoload-report/report.html",
+				"neoload-report/report.xml")) {
+			final Run.Artifact artifact = mock(Run.Artifact.class);
+			ReflectionUtils.setVariableValueInObject(artifact, "relativePath", relativePath);
+			artifacts.add(artifact);
+		}
+
+		assertEquals("neoload-report/12/report.xml",
+				PluginUtils.findArtifacts(Arrays.asList("neoload-report/${BUILD_NUMBER}/report.xml"), artifacts, 12).relativePath);
+		// The first artifact ending with the first path that matches.
+		assertEquals("neoload-report/12/report.xml",
+				PluginUtils.findArtifacts(Arrays.asList("missing.xml", "report.xml"), artifacts, 3).relativePath);
+		assertEquals("neoload-report/report.html",
+				PluginUtils.findArtifacts(Arrays.asList("report.html"), artifacts, 3).relativePath);
+		// A report archived compressed.
+		assertEquals("neoload-report/13/report.xml.gz",
+				PluginUtils.findArtifacts(Arrays.asList("neoload-report/${BUILD_NUMBER}/report.xml"), artifacts, 13).relativePath);
+		assertNull(PluginUtils.findArtifacts(Arrays.asList("report.pdf"), artifacts, 3));
+	}
+
+	@Test
+	public void loadedTrendsKeptUntilTheStoreChanges() throws Exception {
+		final Job job = mock(Job.class);
+		when(job.getRootDir()).thenReturn(temporaryFolder.newFolder("job"));
+		final SimpleBuildOption options = SimpleBuildOption.fromNPO(mo.getNeoBuildAction());
+		when(job.getProperty(SimpleBuildOption.class)).thenReturn(options);
+		assertNull(PluginUtils.loadTrends(job));
+
+		final File report = new File(NeoLoadReportDocTest.class.getResource("data/report-valid.xml").getFile());
+		final NeoloadGraphsStatistics statistics = new NeoloadGraphsStatistics(options);
+		statistics.addReport(report, 1);
+		statistics.getStore().write(PluginUtils.getTrendStoreFile(job));
+		final NeoloadGraphsStatistics trends = PluginUtils.loadTrends(job);
+		assertNotNull(trends);
+		assertSame(trends, PluginUtils.loadTrends(job));
+
+		// A new build is logged.
+		statistics.addReport(report, 2);
+		statistics.getStore().save(PluginUtils.getTrendStoreFile(job));
+		final NeoloadGraphsStatistics updated = PluginUtils.loadTrends(job);
+		assertNotSame(trends, updated);
+		assertEquals(2, updated.getLastBuildNumber());
+
+		// The job is run again with the same options.
+		when(job.getProperty(SimpleBuildOption.class)).thenReturn(SimpleBuildOption.fromNPO(mo.getNeoBuildAction()));
+		assertSame(updated, PluginUtils.loadTrends(job));
+		// The charts are drawn as svg.
+		mo.getNeoBuildAction().setSvgTrends(true);
+		when(job.getProperty(SimpleBuildOption.class)).thenReturn(SimpleBuildOption.fromNPO(mo.getNeoBuildAction()));
+		final NeoloadGraphsStatistics svg = PluginUtils.loadTrends(job);
+		assertNotSame(updated, svg);
+		assertTrue(svg.isSvg());
+	}
+
+	@Test
+	public void loadTrendsOfAFreestyleJob() throws Exception {
+		// The options are those of the builder, the job has no option property.
+		final Project project = mock(Project.class);
+		when(project.getRootDir()).thenReturn(temporaryFolder.newFolder("freestyle"));
+		when(project.getBuilders()).thenReturn(Collections.<Builder>singletonList(mo.getNeoBuildAction()));
+		assertNull(PluginUtils.loadTrends(project));
+
+		final NeoloadGraphsStatistics statistics = new NeoloadGraphsStatistics(mo.getNeoBuildAction());
+		statistics.addReport(new File(NeoLoadReportDocTest.class.getResource("data/report-valid.xml").getFile()), 1);
+		statistics.getStore().write(PluginUtils.getTrendStoreFile(project));
+		final NeoloadGraphsStatistics trends = PluginUtils.loadTrends(project);
+		assertNotNull(trends);
+		assertEquals(1, trends.getLastBuildNumber());
+		assertSame(trends, PluginUtils.loadTrends(project));
+	}
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.FilePath;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReportAssetStoreTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Job job;
+	private File buildsDir;
+	private TaskListener listener;
+
+	@Before
+	public void setup() throws Exception {
+		job = mock(Job.class);
+		when(job.getRootDir()).thenReturn(temporaryFolder.newFolder("job"));
+		buildsDir = temporaryFolder.newFolder("job", "builds");
+		when(job.getBuildDir()).thenReturn(buildsDir);
+		listener = mock(TaskListener.class);
+		when(listener.getLogger()).thenReturn(System.out);
+	}
+
+	private Run mockBuild(final int number) {
+		final Run run = mock(Run.class);
+		final File buildDir = new File(buildsDir, Integer.toString(number));
+		assertTrue(buildDir.mkdirs());
+		doReturn(job).when(run).getParent();
+		when(run.getRootDir()).thenReturn(buildDir);
+		return run;
+	}
+
+	private File writeAssets(final String name, final String logo, final String style) throws Exception {
+		final File assetsDir = temporaryFolder.newFolder(name, "report_files");
+		FileUtils.writeStringToFile(new File(assetsDir, "logo.png"), logo, StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(assetsDir, "css/style.css"), style, StandardCharsets.UTF_8);
+		return assetsDir;
+	}
+
+	@Test
+	public void identicalAssetsAreStoredOnce() throws Exception {
+		final Run first = mockBuild(1);
+		final Run second = mockBuild(2);
+		assertEquals(2, ReportAssetStore.archive(first, new FilePath(writeAssets("ws1", "logo", "body {}")), listener));
+		assertEquals(1, ReportAssetStore.archive(second, new FilePath(writeAssets("ws2", "logo", "body {color: red}")), listener));
+
+		final Map<String, String> firstManifest = ReportAssetStore.readManifest(first.getRootDir());
+		final Map<String, String> secondManifest = ReportAssetStore.readManifest(second.getRootDir());
+		assertEquals(firstManifest.get("report_files/logo.png"), secondManifest.get("report_files/logo.png"));
+		assertNotEquals(firstManifest.get("report_files/css/style.css"), secondManifest.get("report_files/css/style.css"));
+
+		final File style = ReportAssetStore.findAsset(job, secondManifest, "report_files/css/style.css");
+		assertNotNull(style);
+		assertEquals("body {color: red}", FileUtils.readFileToString(style, StandardCharsets.UTF_8));
+		assertNull(ReportAssetStore.findAsset(job, secondManifest, "report_files/missing.png"));
+	}
+
+	@Test
+	public void unreferencedAssetsAreCollected() throws Exception {
+		final Run first = mockBuild(1);
+		final Run second = mockBuild(2);
+		ReportAssetStore.archive(first, new FilePath(writeAssets("ws1", "logo", "body {}")), listener);
+		ReportAssetStore.archive(second, new FilePath(writeAssets("ws2", "logo", "body {color: red}")), listener);
+
+		assertEquals(0, ReportAssetStore.collectGarbage(job, null));
+		assertEquals(1, ReportAssetStore.collectGarbage(job, first.getRootDir()));
+		final Map<String, String> secondManifest = ReportAssetStore.readManifest(second.getRootDir());
+		assertNotNull(ReportAssetStore.findAsset(job, secondManifest, "report_files/logo.png"));
+		assertNotNull(ReportAssetStore.findAsset(job, secondManifest, "report_files/css/style.css"));
+		assertNull(ReportAssetStore.findAsset(job, ReportAssetStore.readManifest(first.getRootDir()), "report_files/css/style.css"));
+	}
+
+	@Test
+	public void missingAssetsDirectory() throws Exception {
+		final Run run = mockBuild(1);
+		assertEquals(0, ReportAssetStore.archive(run, new FilePath(new File(temporaryFolder.getRoot(), "missing")), listener));
+		assertTrue(ReportAssetStore.readManifest(run.getRootDir()).isEmpty());
+	}
+
+	@Test
+	public void hashesOfTheAgentAreChecked() throws Exception {
+		final Run run = mockBuild(1);
+		final FilePath assetsDir = new FilePath(writeAssets("ws1", "logo", "body {}"));
+		final String logoHash = HashReportAssetsCallable.hash(new File(assetsDir.getRemote(), "logo.png"));
+		try {
+			ReportAssetStore.archive(run, assetsDir, Collections.singletonMap("logo.png", "../../../config.xml"), listener);
+			fail("A hash must not be a path");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("Invalid hash"));
+		}
+		// The hash of another content: the transferred file isn't stored.
+		final String otherHash = StringUtils.repeat("0", 64);
+		try {
+			ReportAssetStore.archive(run, assetsDir, Collections.singletonMap("logo.png", otherHash), listener);
+			fail("A file not matching its hash must not be stored");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("doesn't match"));
+		}
+		final File stored = ReportAssetStore.getStoredFile(ReportAssetStore.getStoreDir(job), otherHash);
+		assertFalse(stored.exists());
+		assertFalse(new File(stored.getParentFile(), stored.getName() + ".tmp").exists());
+		assertTrue(ReportAssetStore.readManifest(run.getRootDir()).isEmpty());
+
+		assertEquals(1, ReportAssetStore.archive(run, assetsDir, Collections.singletonMap("logo.png", logoHash), listener));
+		assertNull(ReportAssetStore.findAsset(job, Collections.singletonMap("logo.png", "../logo"), "logo.png"));
+		assertNotNull(ReportAssetStore.findAsset(job, ReportAssetStore.readManifest(run.getRootDir()), "report_files/logo.png"));
+	}
+}
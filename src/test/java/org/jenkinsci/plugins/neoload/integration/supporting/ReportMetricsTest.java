@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import hudson.FilePath;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReportMetricsTest {
+
+	private static final String AVG_PAGES = "/report/summary/all-summary/statistic-item[@type='httppage']/@avg";
+	private static final String ERROR_RATE = "/report/summary/statistics/statistic[@name='error_percentile']/@value";
+	private static final String CUSTOM = NeoLoadReportDoc.getXPathForCustomGraph("VirtualUser>/jpetstore/", "error");
+	private static final String MONITOR = NeoLoadReportDoc.getXPathForCustomMonitorOrLGGraph("LG localhost/CPU", "percentile");
+	private static final String NOT_STORED = "/report/monitors/monitored-host[@name=\"LG localhost\"]/monitor/counters/statistic-item[@name=\"LG localhost/CPU\"]/@median";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File report;
+
+	@Before
+	public void setup() {
+		report = new File(ReportMetricsTest.class.getResource("data/report-valid.xml").getFile());
+	}
+
+	@Test
+	public void storedValuesMatchReport() throws Exception {
+		final File file = new File(temporaryFolder.getRoot(), ReportMetrics.FILE_NAME);
+		NeoloadReportExtractor.collectMetrics(report).write(file);
+		assertTrue(file.length() < report.length() / 10);
+
+		final ReportMetrics metrics = ReportMetrics.read(file);
+		assertNotNull(metrics);
+		final List<String> xPaths = Arrays.asList(AVG_PAGES, ERROR_RATE, CUSTOM, MONITOR, NOT_STORED);
+		final Map<String, Float> values = metrics.extract(xPaths);
+		final Document document = XMLUtilities.readXmlFile(report.getAbsolutePath());
+		for (String xPath : Arrays.asList(AVG_PAGES, ERROR_RATE, CUSTOM, MONITOR)) {
+			assertTrue(values.containsKey(xPath));
+			assertEquals(PluginUtils.getCustom(xPath, document), values.get(xPath));
+		}
+		assertFalse(values.containsKey(NOT_STORED));
+		assertFalse(ReportMetrics.isAnswerable(NOT_STORED));
+	}
+
+	@Test
+	public void collectOnReportLocation() throws Exception {
+		final ReportMetrics metrics = new FilePath(report).act(new CollectMetricsCallable());
+		assertNotNull(metrics);
+		assertEquals(NeoloadReportExtractor.collectMetrics(report).size(), metrics.size());
+		assertNull(new FilePath(new File(temporaryFolder.getRoot(), "missing.xml")).act(new CollectMetricsCallable()));
+	}
+
+	@Test
+	public void mergeShards() throws Exception {
+		final ReportMetrics shardA = NeoloadReportExtractor.collectMetrics(report);
+		// A second shard with less load, slower pages and some errors.
+		String content = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+		content = content.replace("name=\"total_hits\" severity=\"none\" unit=\"\" value=\"639\"",
+				"name=\"total_hits\" severity=\"none\" unit=\"\" value=\"361\"")
+				.replace("name=\"avg_hits/s\" severity=\"none\" unit=\"\" value=\"20.6\"",
+						"name=\"avg_hits/s\" severity=\"none\" unit=\"\" value=\"9.4\"")
+				.replace("name=\"error_percentile\" severity=\"none\" unit=\"%\" value=\"0\"",
+						"name=\"error_percentile\" severity=\"none\" unit=\"%\" value=\"10\"")
+				.replace("avg=\"0.038\" error_rate=\"0\" errors=\"0\" hits=\"175\"",
+						"avg=\"0.138\" error_rate=\"0\" errors=\"0\" hits=\"25\"")
+				.replace("max=\"0.211\" median=\"0.023\" min=\"&lt;0.01\" name=\"All pages\"",
+						"max=\"0.1\" median=\"0.023\" min=\"0.02\" name=\"All pages\"");
+		final File reportB = temporaryFolder.newFile("shardB.xml");
+		Files.write(reportB.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		final ReportMetrics shardB = NeoloadReportExtractor.collectMetrics(reportB);
+
+		final ReportMetrics merged = ReportMetrics.merge(Arrays.asList(shardA, shardB));
+		assertEquals(shardA.size(), merged.size());
+		final String totalHits = "/report/summary/statistics/statistic[@name='total_hits']/@value";
+		final String hitsPerSecond = "/report/summary/statistics/statistic[@name='avg_hits/s']/@value";
+		final String pagesHits = "/report/summary/all-summary/statistic-item[@type='httppage']/@hits";
+		final String pagesMin = "/report/summary/all-summary/statistic-item[@type='httppage']/@min";
+		final String pagesMax = "/report/summary/all-summary/statistic-item[@type='httppage']/@max";
+		final Map<String, Float> values = merged.extract(Arrays.asList(totalHits, hitsPerSecond, pagesHits, AVG_PAGES, ERROR_RATE, CUSTOM,
+				pagesMin, pagesMax));
+		// The load of the shards is summed.
+		assertEquals(1000f, values.get(totalHits), 0.001f);
+		assertEquals(30f, values.get(hitsPerSecond), 0.001f);
+		assertEquals(200f, values.get(pagesHits), 0.001f);
+		// The times are weighted by the hits of the pages, the rates by the total hits of the shards.
+		assertEquals((0.038f * 175 + 0.138f * 25) / 200, values.get(AVG_PAGES), 0.0001f);
+		assertEquals(3.61f, values.get(ERROR_RATE), 0.001f);
+		// The extremes of all the shards, "<0.01" isn't a number and is ignored.
+		assertEquals(0.02f, values.get(pagesMin), 0.0001f);
+		assertEquals(0.211f, values.get(pagesMax), 0.0001f);
+		// Identical values are unchanged.
+		assertEquals(shardA.extract(Arrays.asList(CUSTOM)).get(CUSTOM), values.get(CUSTOM), 0.001f);
+	}
+
+	@Test
+	public void readMissingOrInvalidFile() throws Exception {
+		assertNull(ReportMetrics.read(new File(temporaryFolder.getRoot(), "missing")));
+		assertNull(ReportMetrics.read(temporaryFolder.newFile("invalid")));
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+
+public class ReportReaderPoolTest {
+
+	private static List<Callable<Integer>> tasks(final int count) {
+		final List<Callable<Integer>> tasks = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			final int index = i;
+			tasks.add(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					// The first tasks end last.
+					Thread.sleep((count - index) * 5L);
+					return index;
+				}
+			});
+		}
+		return tasks;
+	}
+
+	@Test
+	public void resultsInTheOrderOfTheTasks() throws Exception {
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7), ReportReaderPool.invokeAll(tasks(8), 4));
+		assertEquals(Arrays.asList(0, 1, 2), ReportReaderPool.invokeAll(tasks(3), 1));
+	}
+
+	@Test
+	public void failureOfATask() throws Exception {
+		final List<Callable<Integer>> tasks = tasks(2);
+		tasks.add(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				throw new IllegalStateException("unreadable report");
+			}
+		});
+		try {
+			ReportReaderPool.invokeAll(tasks, 2);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void poolResizedWhenTheSettingChanges() {
+		final ThreadPoolExecutor executor = ReportReaderPool.getExecutor(2);
+		assertEquals(2, executor.getCorePoolSize());
+		assertEquals(2, executor.getMaximumPoolSize());
+
+		assertSame(executor, ReportReaderPool.getExecutor(6));
+		assertEquals(6, executor.getCorePoolSize());
+		assertEquals(6, executor.getMaximumPoolSize());
+
+		assertSame(executor, ReportReaderPool.getExecutor(3));
+		assertEquals(3, executor.getCorePoolSize());
+		assertEquals(3, executor.getMaximumPoolSize());
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.jenkinsci.plugins.neoload.integration.supporting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class TrendPicturesTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * A generation published by the previous versions.
+	 */
+	private static File writeGeneration(final File picturesFolder, final String generation, final String... pictures) throws IOException {
+		final File folder = new File(picturesFolder, generation);
+		assertTrue(folder.mkdirs());
+		for (String picture : pictures) {
+			Files.write(new File(folder, picture).toPath(), new byte[]{0});
+		}
+		Files.write(new File(picturesFolder, TrendPictures.CURRENT_FILE_NAME).toPath(), generation.getBytes(StandardCharsets.UTF_8));
+		return folder;
+	}
+
+	@Test
+	public void picturesOfThePreviousVersionsAreListed() throws IOException {
+		final File picturesFolder = new File(temporaryFolder.getRoot(), "neoload-trend");
+		picturesFolder.mkdirs();
+		// Pictures written directly in the folder.
+		Files.write(new File(picturesFolder, "stat00.png").toPath(), new byte[]{0});
+		assertNull(TrendPictures.getCurrentGeneration(picturesFolder));
+		assertEquals(picturesFolder, TrendPictures.getFolder(picturesFolder, null));
+		assertEquals(1, TrendPictures.listPictures(picturesFolder).size());
+
+		final File first = writeGeneration(picturesFolder, "g1", "stat00.png", "stat01.png");
+		final File second = writeGeneration(picturesFolder, "g2", "stat00.png");
+		assertEquals(second.getName(), TrendPictures.getCurrentGeneration(picturesFolder));
+		assertEquals(second, TrendPictures.getFolder(picturesFolder, null));
+		// The previous generation is still served to the pages listing it.
+		assertEquals(first, TrendPictures.getFolder(picturesFolder, first.getName()));
+		assertEquals(2, TrendPictures.listPictures(first).size());
+		assertEquals(second, TrendPictures.getFolder(picturesFolder, "g3"));
+		assertEquals(second, TrendPictures.getFolder(picturesFolder, ".."));
+	}
+
+	@Test
+	public void generationsRemovedOnceChartsAreRenderedOnDemand() throws IOException {
+		final File picturesFolder = new File(temporaryFolder.getRoot(), "neoload-trend");
+		picturesFolder.mkdirs();
+		Files.write(new File(picturesFolder, "stat00.png").toPath(), new byte[]{0});
+		writeGeneration(picturesFolder, "g1", "stat00.png");
+		final File chartsFolder = TrendPictures.getChartsFolder(picturesFolder);
+		chartsFolder.mkdirs();
+
+		TrendPictures.removeGenerations(picturesFolder);
+		assertNull(TrendPictures.getCurrentGeneration(picturesFolder));
+		assertArrayEquals(new String[]{TrendPictures.CHARTS_FOLDER_NAME}, picturesFolder.list());
+	}
+}
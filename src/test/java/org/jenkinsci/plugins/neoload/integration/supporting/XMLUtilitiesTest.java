@@ -30,8 +30,11 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 
 import hudson.util.Secret;
@@ -116,6 +119,35 @@ public class XMLUtilitiesTest extends TestCase {
 				XMLUtilities.findByExpression("/bookstore/book[1]/title", d).get(0).getTextContent()));
 	}
 
+	/**
+	 * Test method for {@link org.jenkinsci.plugins.neoload.integration.supporting.XMLUtilities#compile(java.lang.String)}.
+	 * @throws Exception
+	 */
+	@Test
+	public void testCompileIsCachedPerThread() throws Exception {
+		final XPathExpression expression = XMLUtilities.compile("/bookstore/book/title");
+		assertSame(expression, XMLUtilities.compile("/bookstore/book/title"));
+
+		final AtomicReference<XPathExpression> otherThreadExpression = new AtomicReference<>();
+		final AtomicInteger otherThreadCount = new AtomicInteger();
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					otherThreadExpression.set(XMLUtilities.compile("/bookstore/book/title"));
+					otherThreadCount.set(XMLUtilities.findByExpression("/bookstore/book/title", d).size());
+				} catch (XPathExpressionException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+		thread.start();
+		thread.join();
+		assertNotNull(otherThreadExpression.get());
+		assertNotSame(expression, otherThreadExpression.get());
+		assertEquals(4, otherThreadCount.get());
+	}
+
 	/**
 	 * Test method for {@link org.jenkinsci.plugins.neoload.integration.supporting.XMLUtilities#findFirstByExpression(java.lang.String, org.w3c.dom.Node)}.
 	 * @throws XPathExpressionException